@@ -0,0 +1,65 @@
+package com.kousenit.shopping.benchmarks;
+
+import com.kousenit.shopping.ShoppingApplication;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application with the {@code bench} profile and seeds a fixed catalog, so every
+ * benchmark that needs Spring runs against the same data. The catalog is seeded by an
+ * {@link ApplicationRunner}, which runs before {@code ApplicationReadyEvent}, so the search
+ * and price indexes and the low-stock tracker are built over it.
+ */
+final class BenchmarkContext {
+    
+    static final int CATALOG_SIZE = 1_000;
+    
+    private BenchmarkContext() {
+    }
+    
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        return new SpringApplicationBuilder(ShoppingApplication.class, CatalogSeeder.class)
+            .profiles("bench")
+            .web(webApplicationType)
+            .properties(properties)
+            .run();
+    }
+    
+    static Product product(int index) {
+        Product product = new Product();
+        product.setName("Benchmark Product " + index);
+        product.setPrice(new BigDecimal("19.99").add(BigDecimal.valueOf(index)));
+        product.setDescription("Product used by the JMH benchmarks");
+        product.setQuantity(1_000_000);
+        product.setSku("BEN-%06d".formatted(index));
+        product.setContactEmail("bench@example.com");
+        return product;
+    }
+    
+    static final class CatalogSeeder implements ApplicationRunner {
+        
+        private final ProductRepository productRepository;
+        
+        CatalogSeeder(ProductRepository productRepository) {
+            this.productRepository = productRepository;
+        }
+        
+        @Override
+        public void run(ApplicationArguments args) {
+            List<Product> products = new ArrayList<>(CATALOG_SIZE);
+            for (int i = 1; i <= CATALOG_SIZE; i++) {
+                products.add(product(i));
+            }
+            productRepository.saveAll(products);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kousenit.shopping.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a {@code Page<ProductResponse>}, as returned by {@code GET /api/v1/products}.
+ * The mapper is configured the way Spring Boot configures its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+    
+    @Param({"20", "100"})
+    private int pageSize;
+    
+    private ObjectMapper objectMapper;
+    private Page<ProductResponse> page;
+    
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductResponse> content = new ArrayList<>(pageSize);
+        for (int i = 1; i <= pageSize; i++) {
+            Product product = BenchmarkContext.product(i);
+            product.setId((long) i);
+            product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+            product.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 12, 0));
+            content.add(ProductResponse.from(product));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), BenchmarkContext.CATALOG_SIZE);
+    }
+    
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
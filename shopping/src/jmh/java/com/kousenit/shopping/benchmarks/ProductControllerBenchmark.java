@@ -0,0 +1,64 @@
+package com.kousenit.shopping.benchmarks;
+
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Full MVC request handling through MockMvc (dispatch, argument resolution, service call,
+ * message conversion) without the network stack, against the seeded H2 catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductControllerBenchmark {
+    
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private String productPath;
+    
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        Long productId = context.getBean(ProductRepository.class).findBySku("BEN-000001").orElseThrow().getId();
+        productPath = "/api/v1/products/" + productId;
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+    
+    @Benchmark
+    public MvcResult getProductById() throws Exception {
+        return mockMvc.perform(get(productPath).accept(MediaType.APPLICATION_JSON)).andReturn();
+    }
+    
+    @Benchmark
+    public MvcResult getProductPage() throws Exception {
+        return mockMvc.perform(get("/api/v1/products")
+                .param("page", "3")
+                .param("size", "20")
+                .accept(MediaType.APPLICATION_JSON))
+            .andReturn();
+    }
+}
@@ -0,0 +1,60 @@
+package com.kousenit.shopping.benchmarks;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a page of products as managed entities mapped to {@link ProductResponse}, versus
+ * selecting the rows straight into responses with a constructor expression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductReadPathBenchmark {
+    
+    @Param({"100", "1000"})
+    private int pageSize;
+    
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private PageRequest pageRequest;
+    
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start(WebApplicationType.NONE);
+        productRepository = context.getBean(ProductRepository.class);
+        pageRequest = PageRequest.of(0, pageSize, Sort.by("name"));
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Page<ProductResponse> entities() {
+        return productRepository.findAll(pageRequest).map(ProductResponse::from);
+    }
+    
+    @Benchmark
+    public Page<ProductResponse> projection() {
+        return productRepository.findAllResponses(pageRequest);
+    }
+}
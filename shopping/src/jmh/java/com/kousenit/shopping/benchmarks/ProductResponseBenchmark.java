@@ -0,0 +1,38 @@
+package com.kousenit.shopping.benchmarks;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping an entity to its response DTO, which every read endpoint pays per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProductResponseBenchmark {
+    
+    private Product product;
+    
+    @Setup
+    public void setUp() {
+        product = BenchmarkContext.product(42);
+        product.setId(42L);
+        product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        product.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 12, 0));
+    }
+    
+    @Benchmark
+    public ProductResponse fromEntity() {
+        return ProductResponse.from(product);
+    }
+}
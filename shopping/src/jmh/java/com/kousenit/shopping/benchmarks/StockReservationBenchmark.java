@@ -0,0 +1,68 @@
+package com.kousenit.shopping.benchmarks;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.repositories.ProductRepository;
+import com.kousenit.shopping.services.ProductService;
+import com.kousenit.shopping.services.StockService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-unit stock reservations against the embedded H2 database, comparing the
+ * entity-based {@link ProductService#reserveStock} with the conditional-update path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StockReservationBenchmark {
+    
+    private static final int STOCK = 100_000_000;
+    
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private StockService stockService;
+    private ProductRepository productRepository;
+    private Long productId;
+    
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContext.start(WebApplicationType.NONE);
+        productService = context.getBean(ProductService.class);
+        stockService = context.getBean(StockService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        productId = productRepository.findBySku("BEN-000001").orElseThrow().getId();
+    }
+    
+    // Refill between iterations so no run ever hits InsufficientStockException
+    @Setup(Level.Iteration)
+    public void refill() {
+        productService.updateStock(productId, STOCK);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+    
+    @Benchmark
+    public ProductResponse reserveStock() {
+        return productService.reserveStock(productId, 1);
+    }
+    
+    @Benchmark
+    public StockLevel reserveStockAtomically() {
+        return stockService.reserveStockAtomically(productId, 1);
+    }
+}
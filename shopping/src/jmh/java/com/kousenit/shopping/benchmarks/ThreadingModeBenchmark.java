@@ -0,0 +1,92 @@
+package com.kousenit.shopping.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform-thread versus virtual-thread serving under a burst of concurrent requests that all
+ * go to the database. Each invocation fires {@value #CONCURRENT_REQUESTS} page requests at a real
+ * Tomcat instance and waits for all of them, so the score is the average time per request
+ * with far more requests in flight than Tomcat has platform worker threads.
+ * <p>
+ * The {@code virtual} mode needs a Java 21+ benchmark JVM, which {@code build.gradle} sets up
+ * for the forks. On an older runtime Spring Boot would ignore the flag and both modes would
+ * measure the platform pool, so the trial fails instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ThreadingModeBenchmark {
+    
+    private static final int CONCURRENT_REQUESTS = 1_000;
+    
+    @Param({"platform", "virtual"})
+    private String mode;
+    
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private List<HttpRequest> requests;
+    
+    @Setup(Level.Trial)
+    public void startServer() {
+        boolean virtual = mode.equals("virtual");
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("virtual mode needs a Java 21+ JVM, not Java " + Runtime.version());
+        }
+        context = BenchmarkContext.start(WebApplicationType.SERVLET,
+            "spring.threads.virtual.enabled=" + virtual,
+            "shopping.datasource.concurrency-limit.enabled=" + virtual,
+            "server.tomcat.max-connections=10000",
+            "server.tomcat.accept-count=1000");
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        requests = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            int page = i % (BenchmarkContext.CATALOG_SIZE / 20);
+            requests.add(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/v1/products?size=20&page=" + page)).build());
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public int concurrentPageRequests() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+        for (HttpRequest request : requests) {
+            responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+}
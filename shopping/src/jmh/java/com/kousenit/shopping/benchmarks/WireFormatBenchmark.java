@@ -0,0 +1,103 @@
+package com.kousenit.shopping.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.kousenit.shopping.dto.ProductRequest;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON versus CBOR for the product API payloads: encoding and decoding a
+ * {@code Page<ProductResponse>} and a {@code ProductRequest}. The mappers are built the way
+ * Spring Boot and {@code CborConfig} build them. Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireFormatBenchmark {
+    
+    @Param({"json", "cbor"})
+    private String format;
+    
+    @Param({"20", "100"})
+    private int pageSize;
+    
+    private ObjectMapper mapper;
+    private Page<ProductResponse> page;
+    private ProductRequest request;
+    private byte[] encodedPage;
+    private byte[] encodedRequest;
+    
+    @Setup
+    public void setUp() throws IOException {
+        mapper = "cbor".equals(format)
+            ? Jackson2ObjectMapperBuilder.json()
+                .factory(new CBORFactory())
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+            : Jackson2ObjectMapperBuilder.json().build();
+        
+        List<ProductResponse> content = new ArrayList<>(pageSize);
+        for (int i = 1; i <= pageSize; i++) {
+            Product product = BenchmarkContext.product(i);
+            product.setId((long) i);
+            product.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0, 0, 123_456_000));
+            product.setUpdatedAt(LocalDateTime.of(2024, 6, 1, 12, 0, 0, 654_321_000));
+            content.add(ProductResponse.from(product));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), BenchmarkContext.CATALOG_SIZE);
+        Product product = BenchmarkContext.product(1);
+        request = new ProductRequest(product.getName(), product.getPrice(), product.getDescription(),
+            product.getQuantity(), product.getSku(), product.getContactEmail());
+        
+        encodedPage = mapper.writeValueAsBytes(page);
+        encodedRequest = mapper.writeValueAsBytes(request);
+        System.out.printf("%n%s payload bytes: page of %d = %d, request = %d%n",
+            format, pageSize, encodedPage.length, encodedRequest.length);
+    }
+    
+    @Benchmark
+    public byte[] encodePage() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+    
+    @Benchmark
+    public PageBody decodePage() throws IOException {
+        return mapper.readValue(encodedPage, PageBody.class);
+    }
+    
+    @Benchmark
+    public byte[] encodeRequest() throws IOException {
+        return mapper.writeValueAsBytes(request);
+    }
+    
+    @Benchmark
+    public ProductRequest decodeRequest() throws IOException {
+        return mapper.readValue(encodedRequest, ProductRequest.class);
+    }
+    
+    // What a caller binds a page to; the paging metadata beyond the total is skipped
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PageBody(List<ProductResponse> content, long totalElements) {
+    }
+}
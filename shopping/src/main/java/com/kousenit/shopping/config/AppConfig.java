@@ -8,11 +8,16 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 @Configuration
+@EnableScheduling
+// Retry advice is ordered just outside @Transactional, so each attempt gets a new transaction
+@EnableRetry
 @RequiredArgsConstructor
 @Slf4j
 public class AppConfig {
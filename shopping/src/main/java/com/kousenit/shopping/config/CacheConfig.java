@@ -0,0 +1,21 @@
+package com.kousenit.shopping.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables the product read caches. The Caffeine spec (size bound, TTL and stats recording)
+ * lives in application.yml; cache hit/miss/eviction counts show up under the actuator
+ * {@code cache.*} metrics.
+ * <p>
+ * The caching advice is ordered outside the transaction advice so that {@code @CacheEvict}
+ * runs after commit rather than before it.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 10)
+public class CacheConfig {
+    
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCTS_BY_SKU = "productsBySku";
+}
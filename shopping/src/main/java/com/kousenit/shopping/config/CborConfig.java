@@ -0,0 +1,34 @@
+package com.kousenit.shopping.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * CBOR as a compact alternative to JSON for internal callers of the product API.
+ * <p>
+ * Responses are encoded as CBOR for clients that send {@code Accept: application/cbor}, and
+ * request bodies sent as {@code Content-Type: application/cbor} are read with the same mapper.
+ * JSON stays the default. The mapper comes from Spring Boot's Jackson builder, so modules and
+ * settings match the JSON side, except that dates are written as numeric arrays instead of
+ * ISO strings. {@code BigDecimal} prices are written as CBOR decimal fractions, so neither
+ * needs text parsing on the receiving side. See {@code WireFormatBenchmark} for sizes and costs.
+ */
+@Configuration
+public class CborConfig {
+    
+    // Replaces the CBOR converter Spring MVC would otherwise register with a default mapper
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cborMapper = builder
+            .createXmlMapper(false)
+            .factory(new CBORFactory())
+            .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+}
@@ -0,0 +1,29 @@
+package com.kousenit.shopping.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Request logging for the {@code prod} profile.
+ * <p>
+ * Handlers and services log at DEBUG, which production turns off, so the per-request INFO line
+ * comes from {@link SampledRequestLoggingFilter} instead. Appenders are asynchronous in that
+ * profile; see logback-spring.xml.
+ */
+@Configuration
+public class LoggingConfig {
+    
+    @Bean
+    @ConditionalOnProperty(name = "shopping.logging.request-sampling.enabled", havingValue = "true")
+    public FilterRegistrationBean<SampledRequestLoggingFilter> sampledRequestLoggingFilter(
+            @Value("${shopping.logging.request-sampling.rate:100}") int sampleRate,
+            @Value("${shopping.logging.request-sampling.slow-threshold-ms:500}") long slowThresholdMillis) {
+        FilterRegistrationBean<SampledRequestLoggingFilter> registration =
+            new FilterRegistrationBean<>(new SampledRequestLoggingFilter(sampleRate, slowThresholdMillis));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
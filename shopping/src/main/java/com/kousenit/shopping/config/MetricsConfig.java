@@ -0,0 +1,32 @@
+package com.kousenit.shopping.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Latency metrics for the product API.
+ * <p>
+ * A request is timed in layers: {@code http.server.requests} covers the whole exchange per
+ * route, {@code shopping.api.handler} the controller method without writing the body,
+ * {@code shopping.service} the service call including database work, and
+ * {@code spring.data.repository.invocations} the repository calls alone. Writing the JSON body
+ * is timed by {@link TimedJacksonHttpMessageConverter}. The {@code @Timed} timers are recorded
+ * by Spring Boot's {@code TimedAspect}, enabled with
+ * {@code management.observations.annotations.enabled}.
+ * <p>
+ * The timers publish percentile histograms rather than client-side percentiles: recording a
+ * sample only increments a bucket, and p99 per route is computed by Prometheus from the
+ * {@code /actuator/prometheus} scrape, so the metrics can stay on in production.
+ */
+@Configuration
+public class MetricsConfig {
+    
+    // Replaces Spring Boot's default Jackson converter, which backs off when one is defined
+    @Bean
+    public TimedJacksonHttpMessageConverter timedJacksonHttpMessageConverter(ObjectMapper objectMapper,
+                                                                             MeterRegistry meterRegistry) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
@@ -0,0 +1,48 @@
+package com.kousenit.shopping.config;
+
+import com.kousenit.shopping.repositories.ReactiveProductRepository;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to the products table for the reactive API.
+ * <p>
+ * Spring Boot backs off its JDBC {@code DataSource} as soon as an R2DBC
+ * {@link ConnectionFactory} bean exists, so the R2DBC auto-configuration is excluded in
+ * application.yml and the connection pool is kept private to the entity template here.
+ * JPA, Hikari and the blocking stack are unaffected; both sides talk to the same H2 database.
+ * The reactive side runs without a transaction manager, so each statement commits on its own.
+ */
+@Configuration
+@EnableR2dbcRepositories(
+    basePackageClasses = ReactiveProductRepository.class,
+    entityOperationsRef = "reactiveEntityTemplate")
+public class ReactiveDataConfig implements DisposableBean {
+    
+    private final ConnectionFactory connectionFactory;
+    
+    public ReactiveDataConfig(@Value("${shopping.reactive.r2dbc-url}") String url) {
+        this.connectionFactory = ConnectionFactories.get(url);
+    }
+    
+    @Bean
+    public R2dbcEntityTemplate reactiveEntityTemplate() {
+        return new R2dbcEntityTemplate(connectionFactory, DialectResolver.getDialect(connectionFactory));
+    }
+    
+    @Override
+    public void destroy() {
+        if (connectionFactory instanceof Closeable closeable) {
+            Mono.from(closeable.close()).block();
+        }
+    }
+}
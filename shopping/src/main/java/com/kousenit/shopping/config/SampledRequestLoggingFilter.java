@@ -0,0 +1,60 @@
+package com.kousenit.shopping.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs one line per sampled API request instead of one line per handler and service call.
+ * <p>
+ * About one request in {@code sampleRate} is logged, picked with a thread-local random number
+ * so request threads never contend on a shared counter. Server errors and requests slower than
+ * {@code slowThresholdMillis} are always logged. When INFO is off for this logger the filter
+ * does nothing but pass the request on.
+ */
+@Slf4j
+public class SampledRequestLoggingFilter extends OncePerRequestFilter {
+    
+    private final int sampleRate;
+    private final long slowThresholdNanos;
+    
+    public SampledRequestLoggingFilter(int sampleRate, long slowThresholdMillis) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1");
+        }
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!log.isInfoEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (shouldLog(response.getStatus(), elapsed)) {
+                log.info("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(),
+                    response.getStatus(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        }
+    }
+    
+    boolean shouldLog(int status, long elapsedNanos) {
+        return status >= 500
+            || elapsedNanos >= slowThresholdNanos
+            || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.kousenit.shopping.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Jackson converter that records how long writing each JSON response body takes.
+ * <p>
+ * The time is reported as {@code shopping.http.serialization}, tagged with the same route
+ * template that {@code http.server.requests} uses, so serialization can be told apart from
+ * the handler and database time of a route. Bodies written outside a request thread, such as
+ * streamed elements of a reactive response, are tagged {@code UNKNOWN}. Product details are
+ * written as pre-serialized bytes from the {@code ProductJsonCache} and do not pass through here.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    
+    static final String METRIC_NAME = "shopping.http.serialization";
+    
+    private final MeterRegistry meterRegistry;
+    
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                .description("Time spent writing JSON response bodies")
+                .tag("uri", currentRoute())
+                .register(meterRegistry));
+        }
+    }
+    
+    private static String currentRoute() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object pattern = attributes != null
+            ? attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+            : null;
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
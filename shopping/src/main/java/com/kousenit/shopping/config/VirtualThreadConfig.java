@@ -0,0 +1,61 @@
+package com.kousenit.shopping.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Support for the {@code virtual-threads} profile.
+ * <p>
+ * The profile sets {@code spring.threads.virtual.enabled}, which makes Spring Boot serve
+ * Tomcat requests and scheduled tasks on virtual threads. That switch only takes effect on
+ * a Java 21+ runtime; on older JVMs the application keeps the platform thread pools and logs
+ * a warning at startup. The profile also turns on the
+ * {@link ConcurrencyLimitedDataSource} in front of the connection pool.
+ */
+@Configuration
+@Slf4j
+public class VirtualThreadConfig {
+    
+    @Bean
+    @Profile("virtual-threads")
+    public ApplicationRunner virtualThreadRuntimeCheck(Environment environment) {
+        return args -> {
+            int feature = Runtime.version().feature();
+            if (feature < 21) {
+                log.warn("virtual-threads profile is active but the JVM is Java {}; " +
+                         "requests will be served on platform threads", feature);
+            } else {
+                log.info("Serving requests on virtual threads (spring.threads.virtual.enabled={})",
+                    environment.getProperty("spring.threads.virtual.enabled"));
+            }
+        };
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "shopping.datasource.concurrency-limit.enabled", havingValue = "true")
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    int maxConcurrency = environment.getProperty("shopping.datasource.concurrency-limit.permits",
+                        Integer.class, environment.getProperty("spring.datasource.hikari.maximum-pool-size",
+                            Integer.class, 10));
+                    long timeoutMillis = environment.getProperty("shopping.datasource.concurrency-limit.timeout-ms",
+                        Long.class, 30_000L);
+                    log.info("Limiting data source '{}' to {} concurrent connections", beanName, maxConcurrency);
+                    return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, timeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
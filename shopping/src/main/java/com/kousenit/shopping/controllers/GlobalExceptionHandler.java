@@ -5,16 +5,19 @@ import com.kousenit.shopping.dto.ValidationError;
 import com.kousenit.shopping.exceptions.InsufficientStockException;
 import com.kousenit.shopping.exceptions.ProductNotFoundException;
 import com.kousenit.shopping.exceptions.ProductValidationException;
+import com.kousenit.shopping.exceptions.StockHoldNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
@@ -54,6 +57,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(problemDetail);
     }
 
+    @ExceptionHandler(StockHoldNotFoundException.class)
+    public ResponseEntity<ProblemDetail> handleStockHoldNotFoundException(
+            StockHoldNotFoundException ex, HttpServletRequest request) {
+
+        logger.warn("Stock hold not found: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.NOT_FOUND, ex.getMessage());
+        problemDetail.setType(URI.create("https://api.shopping.com/problems/stock-hold-not-found"));
+        problemDetail.setTitle("Stock Hold Not Found");
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        problemDetail.setProperty("timestamp", LocalDateTime.now());
+        problemDetail.setProperty("holdId", ex.getHoldId());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(problemDetail);
+    }
+
     @ExceptionHandler(InsufficientStockException.class)
     public ResponseEntity<ProblemDetail> handleInsufficientStockException(
             InsufficientStockException ex, HttpServletRequest request) {
@@ -254,6 +274,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(problemDetail);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemDetail> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, HttpServletRequest request) {
+
+        logger.warn("Concurrent modification not resolved by retries: {}", ex.getMessage());
+
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
+                HttpStatus.CONFLICT,
+                "The product was modified concurrently. Please retry the request.");
+        problemDetail.setType(URI.create("https://api.shopping.com/problems/concurrent-modification"));
+        problemDetail.setTitle("Concurrent Modification");
+        problemDetail.setInstance(URI.create(request.getRequestURI()));
+        problemDetail.setProperty("timestamp", LocalDateTime.now());
+
+        if (ex instanceof ObjectOptimisticLockingFailureException lockingFailure
+                && lockingFailure.getIdentifier() != null) {
+            problemDetail.setProperty("productId", lockingFailure.getIdentifier());
+        }
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(problemDetail);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ProblemDetail> handleIllegalArgumentException(
             IllegalArgumentException ex, HttpServletRequest request) {
@@ -1,67 +1,195 @@
 package com.kousenit.shopping.controllers;
 
+import com.kousenit.shopping.dto.BulkReservationRequest;
+import com.kousenit.shopping.dto.CursorPage;
+import com.kousenit.shopping.dto.ImportResult;
 import com.kousenit.shopping.dto.ProductRequest;
 import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockContention;
+import com.kousenit.shopping.dto.StockHoldRequest;
+import com.kousenit.shopping.dto.StockHoldResponse;
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.dto.StockMovementResponse;
 import com.kousenit.shopping.dto.StockUpdateRequest;
+import com.kousenit.shopping.services.LowStockNotifier;
+import com.kousenit.shopping.services.ProductExportService;
+import com.kousenit.shopping.services.ProductImportService;
+import com.kousenit.shopping.services.ProductJsonCache;
 import com.kousenit.shopping.services.ProductService;
+import com.kousenit.shopping.services.ProductVersions;
+import com.kousenit.shopping.services.StockHolds;
+import com.kousenit.shopping.services.StockService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.util.List;
+import java.util.function.Supplier;
 
-@SuppressWarnings("LoggingSimilarMessage")
 @RestController
 @RequestMapping("/api/v1/products")
+@Timed(value = "shopping.api.handler", description = "Product API handlers, excluding writing the response body")
 @RequiredArgsConstructor
 @Slf4j
 public class ProductRestController {
     
+    // Upper bound of the price validation on Product
+    private static final BigDecimal MAX_PRICE = new BigDecimal("999999.99");
+    
+    // Set on limited lists that left matches out; the NDJSON variants return every match
+    static final String RESULT_TRUNCATED = "X-Result-Truncated";
+    
     private final ProductService productService;
+    private final StockService stockService;
+    private final StockHolds stockHolds;
+    private final ProductExportService productExportService;
+    private final ProductImportService productImportService;
+    private final LowStockNotifier lowStockNotifier;
+    private final ProductVersions productVersions;
+    private final ProductJsonCache productJsonCache;
     
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id) {
-        log.info("GET /api/v1/products/{}", id);
-        ProductResponse product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<?> getProduct(@PathVariable Long id, WebRequest webRequest) {
+        log.debug("GET /api/v1/products/{}", id);
+        if (prefersCbor(webRequest)) {
+            ProductResponse product = productService.getProductById(id);
+            return ok(variant(ProductVersions.of(product), true)).body(product);
+        }
+        ProductJsonCache.Entry cached = productJsonCache.get(id);
+        if (cached == null) {
+            long stamp = productJsonCache.stamp(id);
+            cached = productJsonCache.put(productService.getProductById(id), stamp);
+        } else if (cached.validator() != null
+                && webRequest.checkNotModified(cached.validator().etag(), cached.validator().lastModified())) {
+            return null;
+        }
+        // Already JSON, so the byte array converter writes it to the response as is
+        return ok(cached.validator())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(cached.json());
+    }
+    
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<ProductResponse> getProductBySku(@PathVariable String sku) {
+        log.debug("GET /api/v1/products/sku/{}", sku);
+        ProductResponse product = productService.getProductBySku(sku);
+        return ok(ProductVersions.of(product)).body(product);
     }
     
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> getAllProducts(
-            @PageableDefault(size = 20, sort = "name", direction = Sort.Direction.ASC) Pageable pageable) {
-        log.info("GET /api/v1/products - page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
-        Page<ProductResponse> products = productService.getAllProducts(pageable);
-        return ResponseEntity.ok(products);
+            @PageableDefault(size = 20, sort = "name", direction = Sort.Direction.ASC) Pageable pageable,
+            WebRequest webRequest) {
+        log.debug("GET /api/v1/products - page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
+        return ifCatalogModified(webRequest, () -> productService.getAllProducts(pageable));
+    }
+    
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ProductResponse>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
+        log.debug("GET /api/v1/products/scroll?cursor={}&size={}", cursor, size);
+        return ifCatalogModified(webRequest, () -> productService.scrollProducts(cursor, size));
+    }
+    
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        log.info("GET /api/v1/products/export");
+        return ndjson(productExportService::exportCatalog);
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResult> importProducts(InputStream body) throws IOException {
+        log.info("POST /api/v1/products/import");
+        ImportResult result = productImportService.importCatalog(body);
+        return ResponseEntity.ok(result);
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam String name) {
-        log.info("GET /api/v1/products/search?name={}", name);
-        List<ProductResponse> products = productService.searchProductsByName(name);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductResponse>> searchProducts(
+            @RequestParam String name,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            WebRequest webRequest) {
+        // Guarded only where three or more arguments would allocate a varargs array per request
+        if (log.isDebugEnabled()) {
+            log.debug("GET /api/v1/products/search?name={}&minPrice={}&maxPrice={}&page={}&size={}",
+                name, minPrice, maxPrice, page, size);
+        }
+        if (minPrice == null && maxPrice == null) {
+            return ifCatalogModifiedSlice(webRequest, () -> productService.searchProductsByName(name, page, size));
+        }
+        return ifCatalogModifiedSlice(webRequest, () -> productService.searchProducts(name,
+            minPrice != null ? minPrice : BigDecimal.ZERO,
+            maxPrice != null ? maxPrice : MAX_PRICE,
+            page, size));
+    }
+    
+    /**
+     * The whole search result as NDJSON, read from a database cursor as it is written, for
+     * clients that want every match rather than one page.
+     */
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchResults(
+            @RequestParam String name,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /api/v1/products/search?name={}&minPrice={}&maxPrice={} as NDJSON", name, minPrice, maxPrice);
+        }
+        BigDecimal min = minPrice != null ? minPrice : BigDecimal.ZERO;
+        BigDecimal max = maxPrice != null ? maxPrice : MAX_PRICE;
+        validatePriceRange(min, max);
+        return ndjson(out -> productExportService.exportSearch(name, min, max, out));
     }
     
     @GetMapping("/price-range")
     public ResponseEntity<List<ProductResponse>> getProductsByPriceRange(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest webRequest) {
+        if (log.isDebugEnabled()) {
+            log.debug("GET /api/v1/products/price-range?minPrice={}&maxPrice={}&limit={}", minPrice, maxPrice, limit);
+        }
+        return ifCatalogModifiedSlice(webRequest,
+            () -> productService.getProductsByPriceRange(minPrice, maxPrice, limit));
+    }
+    
+    @GetMapping(value = "/price-range", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
             @RequestParam BigDecimal maxPrice) {
-        log.info("GET /api/v1/products/price-range?minPrice={}&maxPrice={}", minPrice, maxPrice);
-        List<ProductResponse> products = productService.getProductsByPriceRange(minPrice, maxPrice);
-        return ResponseEntity.ok(products);
+        log.debug("GET /api/v1/products/price-range?minPrice={}&maxPrice={} as NDJSON", minPrice, maxPrice);
+        validatePriceRange(minPrice, maxPrice);
+        return ndjson(out -> productExportService.exportPriceRange(minPrice, maxPrice, out));
     }
     
     @PostMapping
     public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductRequest request) {
-        log.info("POST /api/v1/products - Creating product with SKU: {}", request.sku());
+        log.debug("POST /api/v1/products - Creating product with SKU: {}", request.sku());
         ProductResponse product = productService.createProduct(request);
         
         URI location = ServletUriComponentsBuilder
@@ -77,14 +205,14 @@ public class ProductRestController {
     public ResponseEntity<ProductResponse> updateProduct(
             @PathVariable Long id,
             @Valid @RequestBody ProductRequest request) {
-        log.info("PUT /api/v1/products/{} - Updating product", id);
+        log.debug("PUT /api/v1/products/{} - Updating product", id);
         ProductResponse product = productService.updateProduct(id, request);
         return ResponseEntity.ok(product);
     }
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        log.info("DELETE /api/v1/products/{}", id);
+        log.debug("DELETE /api/v1/products/{}", id);
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
@@ -93,8 +221,8 @@ public class ProductRestController {
     public ResponseEntity<ProductResponse> updateStock(
             @PathVariable Long id,
             @Valid @RequestBody StockUpdateRequest request) {
-        log.info("PUT /api/v1/products/{}/stock - New quantity: {}", id, request.quantity());
-        ProductResponse product = productService.updateStock(id, request.quantity());
+        log.debug("PUT /api/v1/products/{}/stock - New quantity: {}", id, request.quantity());
+        ProductResponse product = stockService.updateStock(id, request.quantity());
         return ResponseEntity.ok(product);
     }
     
@@ -102,33 +230,216 @@ public class ProductRestController {
     public ResponseEntity<ProductResponse> reserveStock(
             @PathVariable Long id,
             @Valid @RequestBody StockUpdateRequest request) {
-        log.info("POST /api/v1/products/{}/reserve-stock - Quantity: {}", id, request.quantity());
-        ProductResponse product = productService.reserveStock(id, request.quantity());
+        log.debug("POST /api/v1/products/{}/reserve-stock - Quantity: {}", id, request.quantity());
+        ProductResponse product = stockService.reserveStock(id, request.quantity());
         return ResponseEntity.ok(product);
     }
     
+    @PostMapping("/{id}/reserve-stock/atomic")
+    public ResponseEntity<StockLevel> reserveStockAtomically(
+            @PathVariable Long id,
+            @Valid @RequestBody StockUpdateRequest request) {
+        log.debug("POST /api/v1/products/{}/reserve-stock/atomic - Quantity: {}", id, request.quantity());
+        StockLevel stockLevel = stockService.reserveStockAtomically(id, request.quantity());
+        return ResponseEntity.ok(stockLevel);
+    }
+    
+    /**
+     * Reserves stock for a limited time. The hold is released automatically unless it is
+     * confirmed or cancelled before it expires.
+     */
+    @PostMapping("/{id}/holds")
+    public ResponseEntity<StockHoldResponse> placeStockHold(
+            @PathVariable Long id,
+            @Valid @RequestBody StockHoldRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("POST /api/v1/products/{}/holds - Quantity: {}, TTL: {}s", id, request.quantity(),
+                request.ttlSeconds());
+        }
+        StockHoldResponse hold = stockHolds.place(id, request.quantity(), request.ttlSeconds());
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+    
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<StockHoldResponse> confirmStockHold(@PathVariable String holdId) {
+        log.debug("POST /api/v1/products/holds/{}/confirm", holdId);
+        return ResponseEntity.ok(stockHolds.confirm(holdId));
+    }
+    
+    @PostMapping("/holds/{holdId}/cancel")
+    public ResponseEntity<StockHoldResponse> cancelStockHold(@PathVariable String holdId) {
+        log.debug("POST /api/v1/products/holds/{}/cancel", holdId);
+        StockHoldResponse hold = stockHolds.cancel(holdId);
+        // The stock is returned in the background once the release succeeds
+        HttpStatus status = hold.status() == StockHoldResponse.Status.CANCEL_PENDING
+            ? HttpStatus.ACCEPTED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(hold);
+    }
+    
+    @GetMapping("/stock/contention")
+    public ResponseEntity<List<StockContention>> getStockContention(
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("GET /api/v1/products/stock/contention?limit={}", limit);
+        return ResponseEntity.ok(stockService.getStockContention(limit));
+    }
+    
+    @GetMapping("/{id}/stock/movements")
+    public ResponseEntity<List<StockMovementResponse>> getStockMovements(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.debug("GET /api/v1/products/{}/stock/movements?limit={}", id, limit);
+        return ResponseEntity.ok(stockService.getStockMovements(id, limit));
+    }
+    
+    @GetMapping("/{id}/stock/replay")
+    public ResponseEntity<StockLevel> replayStock(@PathVariable Long id) {
+        log.debug("GET /api/v1/products/{}/stock/replay", id);
+        return ResponseEntity.ok(stockService.replayStock(id));
+    }
+    
+    @GetMapping("/stock/replay")
+    public ResponseEntity<List<StockLevel>> replayAllStock() {
+        log.debug("GET /api/v1/products/stock/replay");
+        return ResponseEntity.ok(stockService.replayStock());
+    }
+    
+    @PostMapping("/reserve-stock")
+    public ResponseEntity<List<ProductResponse>> reserveStock(
+            @Valid @RequestBody BulkReservationRequest request) {
+        log.debug("POST /api/v1/products/reserve-stock - Lines: {}", request.lines().size());
+        List<ProductResponse> products = productService.reserveStock(request.lines());
+        return ResponseEntity.ok(products);
+    }
+    
     @PostMapping("/{id}/add-stock")
     public ResponseEntity<ProductResponse> addStock(
             @PathVariable Long id,
             @Valid @RequestBody StockUpdateRequest request) {
-        log.info("POST /api/v1/products/{}/add-stock - Quantity: {}", id, request.quantity());
-        ProductResponse product = productService.addStock(id, request.quantity());
+        log.debug("POST /api/v1/products/{}/add-stock - Quantity: {}", id, request.quantity());
+        ProductResponse product = stockService.addStock(id, request.quantity());
         return ResponseEntity.ok(product);
     }
     
     @GetMapping("/low-stock")
     public ResponseEntity<List<ProductResponse>> getLowStockProducts(
+            @RequestParam(defaultValue = "10") Integer threshold,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest webRequest) {
+        log.debug("GET /api/v1/products/low-stock?threshold={}&limit={}", threshold, limit);
+        return ifCatalogModifiedSlice(webRequest, () -> productService.getLowStockProducts(threshold, limit));
+    }
+    
+    @GetMapping(value = "/low-stock", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamLowStockProducts(
             @RequestParam(defaultValue = "10") Integer threshold) {
-        log.info("GET /api/v1/products/low-stock?threshold={}", threshold);
-        List<ProductResponse> products = productService.getLowStockProducts(threshold);
-        return ResponseEntity.ok(products);
+        log.debug("GET /api/v1/products/low-stock?threshold={} as NDJSON", threshold);
+        return ndjson(out -> productExportService.exportLowStock(threshold, out));
+    }
+    
+    @GetMapping("/low-stock/levels")
+    public ResponseEntity<List<StockLevel>> getLowStockLevels(
+            @RequestParam(defaultValue = "10") Integer threshold,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest webRequest) {
+        log.debug("GET /api/v1/products/low-stock/levels?threshold={}&limit={}", threshold, limit);
+        return ifCatalogModifiedSlice(webRequest, () -> productService.getLowStockLevels(threshold, limit));
+    }
+    
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockAlerts() {
+        log.debug("GET /api/v1/products/low-stock/stream");
+        return lowStockNotifier.subscribe();
     }
     
     @GetMapping("/expensive")
     public ResponseEntity<List<ProductResponse>> getExpensiveProducts(
+            @RequestParam(defaultValue = "100.00") BigDecimal minPrice,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest webRequest) {
+        log.debug("GET /api/v1/products/expensive?minPrice={}&limit={}", minPrice, limit);
+        return ifCatalogModifiedSlice(webRequest, () -> productService.getExpensiveProducts(minPrice, limit));
+    }
+    
+    @GetMapping(value = "/expensive", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamExpensiveProducts(
             @RequestParam(defaultValue = "100.00") BigDecimal minPrice) {
-        log.info("GET /api/v1/products/expensive?minPrice={}", minPrice);
-        List<ProductResponse> products = productService.getExpensiveProducts(minPrice);
-        return ResponseEntity.ok(products);
+        log.debug("GET /api/v1/products/expensive?minPrice={} as NDJSON", minPrice);
+        return ndjson(out -> productExportService.exportExpensive(minPrice, out));
+    }
+    
+    // NDJSON lists are neither capped nor tagged: rows are written as the cursor reaches them
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+    
+    // Checked before the response starts streaming, so a bad range still gets a 400
+    private static void validatePriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Min price cannot be greater than max price");
+        }
+    }
+    
+    /**
+     * Answers 304 from the catalog version without running the query when the client's copy
+     * is current; otherwise runs it and tags the response with that version. The version is
+     * read before the query, so a change that lands in between only makes the tag older.
+     */
+    private <T> ResponseEntity<T> ifCatalogModified(WebRequest webRequest, Supplier<T> query) {
+        ProductVersions.Validator catalog = variant(productVersions.catalog(), prefersCbor(webRequest));
+        if (webRequest.checkNotModified(catalog.etag(), catalog.lastModified())) {
+            return null;
+        }
+        return ok(catalog).body(query.get());
+    }
+    
+    private <T> ResponseEntity<List<T>> ifCatalogModifiedSlice(WebRequest webRequest, Supplier<Slice<T>> query) {
+        ProductVersions.Validator catalog = variant(productVersions.catalog(), prefersCbor(webRequest));
+        if (webRequest.checkNotModified(catalog.etag(), catalog.lastModified())) {
+            return null;
+        }
+        Slice<T> slice = query.get();
+        ResponseEntity.BodyBuilder builder = ok(catalog);
+        if (slice.hasNext()) {
+            builder.header(RESULT_TRUNCATED, "true");
+        }
+        return builder.body(slice.getContent());
+    }
+    
+    private static ResponseEntity.BodyBuilder ok(ProductVersions.Validator validator) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (validator != null) {
+            builder.eTag(validator.etag()).lastModified(validator.lastModified())
+                .varyBy(HttpHeaders.ACCEPT);
+        }
+        return builder;
+    }
+    
+    // JSON and CBOR are different representations, so they must not share a strong ETag
+    private static ProductVersions.Validator variant(ProductVersions.Validator validator, boolean cbor) {
+        return validator != null && cbor
+            ? new ProductVersions.Validator(validator.etag() + "-cbor", validator.lastModified())
+            : validator;
+    }
+    
+    /**
+     * Whether the client ranks CBOR ahead of JSON in its Accept header, in header order.
+     * Checked by hand for product details, which are otherwise served as cached JSON bytes.
+     */
+    private static boolean prefersCbor(WebRequest webRequest) {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains("cbor")) {
+            return false;
+        }
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
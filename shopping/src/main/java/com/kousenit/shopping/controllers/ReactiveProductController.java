@@ -0,0 +1,83 @@
+package com.kousenit.shopping.controllers;
+
+import com.kousenit.shopping.dto.ProductRequest;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.services.ReactiveProductService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of the product API, backed by R2DBC.
+ * <p>
+ * Handlers return {@code Mono}/{@code Flux} and Spring MVC completes them asynchronously, so
+ * no request thread waits on the database. List and search results are streamed one element
+ * at a time when the client accepts {@code application/x-ndjson}, and the next rows are only
+ * fetched once the previous ones have been written; plain JSON clients get an array as usual.
+ * Errors go through {@link GlobalExceptionHandler} like the blocking API.
+ */
+@RestController
+@RequestMapping("/api/reactive/products")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    @GetMapping("/{id}")
+    public Mono<ProductResponse> getProduct(@PathVariable Long id) {
+        log.debug("GET /api/reactive/products/{}", id);
+        return reactiveProductService.getProductById(id);
+    }
+
+    @GetMapping("/sku/{sku}")
+    public Mono<ProductResponse> getProductBySku(@PathVariable String sku) {
+        log.debug("GET /api/reactive/products/sku/{}", sku);
+        return reactiveProductService.getProductBySku(sku);
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductResponse> getAllProducts() {
+        log.debug("GET /api/reactive/products");
+        return reactiveProductService.streamProducts();
+    }
+
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductResponse> searchProducts(@RequestParam String name) {
+        log.debug("GET /api/reactive/products/search?name={}", name);
+        return reactiveProductService.searchProductsByName(name);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<ProductResponse>> createProduct(@Valid @RequestBody ProductRequest request) {
+        log.debug("POST /api/reactive/products - Creating product with SKU: {}", request.sku());
+        // Resolve the request URI now; the response is built on a reactor thread
+        UriComponentsBuilder location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}");
+        return reactiveProductService.createProduct(request)
+            .map(product -> ResponseEntity
+                .created(location.buildAndExpand(product.id()).toUri())
+                .body(product));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ProductResponse> updateProduct(
+            @PathVariable Long id,
+            @Valid @RequestBody ProductRequest request) {
+        log.debug("PUT /api/reactive/products/{} - Updating product", id);
+        return reactiveProductService.updateProduct(id, request);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable Long id) {
+        log.debug("DELETE /api/reactive/products/{}", id);
+        return reactiveProductService.deleteProduct(id)
+            .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+}
@@ -0,0 +1,13 @@
+package com.kousenit.shopping.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BulkReservationRequest(
+    @NotEmpty(message = "At least one reservation line is required")
+    @Size(max = 500, message = "A reservation cannot contain more than 500 lines")
+    List<@Valid ReservationLine> lines
+) {}
@@ -0,0 +1,14 @@
+package com.kousenit.shopping.dto;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paginated listing. {@code nextCursor} is opaque to clients and is
+ * {@code null} on the last slice; no total count is computed.
+ */
+public record CursorPage<T>(
+    List<T> content,
+    int size,
+    boolean hasNext,
+    String nextCursor
+) {}
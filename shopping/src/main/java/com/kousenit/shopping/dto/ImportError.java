@@ -0,0 +1,7 @@
+package com.kousenit.shopping.dto;
+
+public record ImportError(
+    long line,
+    String sku,
+    String message
+) {}
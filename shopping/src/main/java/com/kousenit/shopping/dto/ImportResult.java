@@ -0,0 +1,14 @@
+package com.kousenit.shopping.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code errors} lists rejected rows by line number, up to the
+ * configured maximum; {@code rejected} always counts all of them.
+ */
+public record ImportResult(
+    long processed,
+    long imported,
+    long rejected,
+    List<ImportError> errors
+) {}
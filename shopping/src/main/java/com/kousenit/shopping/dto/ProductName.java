@@ -0,0 +1,6 @@
+package com.kousenit.shopping.dto;
+
+public record ProductName(
+    Long id,
+    String name
+) {}
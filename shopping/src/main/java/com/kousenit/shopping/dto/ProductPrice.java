@@ -0,0 +1,8 @@
+package com.kousenit.shopping.dto;
+
+import java.math.BigDecimal;
+
+public record ProductPrice(
+    Long id,
+    BigDecimal price
+) {}
@@ -1,6 +1,7 @@
 package com.kousenit.shopping.dto;
 
 import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.entities.ReactiveProduct;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -9,7 +10,7 @@ public record ProductResponse(
     String name,
     BigDecimal price,
     String description,
-    Integer quantity,
+    int quantity,
     String sku,
     String contactEmail,
     LocalDateTime createdAt,
@@ -18,23 +19,54 @@ public record ProductResponse(
     String stockStatus
 ) {
     
+    /**
+     * Target of the JPQL constructor expressions in {@code ProductRepository}: rows are read
+     * straight into responses, with the stock flags derived here instead of from an entity.
+     */
+    public ProductResponse(Long id, String name, BigDecimal price, String description, Integer quantity,
+                           String sku, String contactEmail, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, price, description, quantity, sku, contactEmail, createdAt, updatedAt,
+            quantity > 0, getStockStatus(quantity));
+    }
+    
     public static ProductResponse from(Product product) {
+        return from(product, product.getQuantity());
+    }
+    
+    public static ProductResponse from(Product product, int quantity) {
+        return new ProductResponse(
+            product.getId(),
+            product.getName(),
+            product.getPrice(),
+            product.getDescription(),
+            quantity,
+            product.getSku(),
+            product.getContactEmail(),
+            product.getCreatedAt(),
+            product.getUpdatedAt(),
+            quantity > 0,
+            getStockStatus(quantity)
+        );
+    }
+    
+    public static ProductResponse from(ReactiveProduct product) {
+        int quantity = product.getQuantity();
         return new ProductResponse(
             product.getId(),
             product.getName(),
             product.getPrice(),
             product.getDescription(),
-            product.getQuantity(),
+            quantity,
             product.getSku(),
             product.getContactEmail(),
             product.getCreatedAt(),
             product.getUpdatedAt(),
-            product.getQuantity() > 0,
-            getStockStatus(product.getQuantity())
+            quantity > 0,
+            getStockStatus(quantity)
         );
     }
     
-    private static String getStockStatus(Integer quantity) {
+    private static String getStockStatus(int quantity) {
         if (quantity == 0) return "OUT_OF_STOCK";
         if (quantity < 10) return "LOW_STOCK";
         if (quantity < 50) return "MEDIUM_STOCK";
@@ -0,0 +1,13 @@
+package com.kousenit.shopping.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record ReservationLine(
+    @NotNull(message = "Product id is required")
+    Long productId,
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    Integer quantity
+) {}
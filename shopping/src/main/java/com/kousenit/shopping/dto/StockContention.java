@@ -0,0 +1,10 @@
+package com.kousenit.shopping.dto;
+
+public record StockContention(
+    Long productId,
+    String sku,
+    long operations,
+    long batches,
+    long combinedOperations,
+    int maxBatchSize
+) {}
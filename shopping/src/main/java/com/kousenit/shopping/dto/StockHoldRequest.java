@@ -0,0 +1,14 @@
+package com.kousenit.shopping.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record StockHoldRequest(
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    Integer quantity,
+    
+    // Optional; the configured default applies when absent
+    @Min(value = 1, message = "Hold TTL must be at least 1 second")
+    Integer ttlSeconds
+) {}
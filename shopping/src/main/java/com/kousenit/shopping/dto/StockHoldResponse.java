@@ -0,0 +1,18 @@
+package com.kousenit.shopping.dto;
+
+import java.time.LocalDateTime;
+
+public record StockHoldResponse(
+    String holdId,
+    Long productId,
+    String sku,
+    int quantity,
+    LocalDateTime expiresAt,
+    Status status
+) {
+    
+    public enum Status {
+        // CANCEL_PENDING: cancelled, but the stock is still being given back
+        HELD, CONFIRMED, CANCELLED, CANCEL_PENDING
+    }
+}
@@ -0,0 +1,20 @@
+package com.kousenit.shopping.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A product's stock. {@code version} is the row version the level was read at; it is only
+ * known when the level comes straight from the product row, and is left out otherwise.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StockLevel(
+    Long id,
+    String sku,
+    Integer quantity,
+    Long version
+) {
+    
+    public StockLevel(Long id, String sku, Integer quantity) {
+        this(id, sku, quantity, null);
+    }
+}
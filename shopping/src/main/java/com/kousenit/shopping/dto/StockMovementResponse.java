@@ -0,0 +1,28 @@
+package com.kousenit.shopping.dto;
+
+import com.kousenit.shopping.entities.StockMovement;
+
+import java.time.LocalDateTime;
+
+public record StockMovementResponse(
+    Long id,
+    Long productId,
+    String sku,
+    int delta,
+    int quantity,
+    StockMovement.Reason reason,
+    LocalDateTime occurredAt
+) {
+    
+    public static StockMovementResponse from(StockMovement movement) {
+        return new StockMovementResponse(
+            movement.getId(),
+            movement.getProductId(),
+            movement.getSku(),
+            movement.getDelta(),
+            movement.getQuantity(),
+            movement.getReason(),
+            movement.getOccurredAt()
+        );
+    }
+}
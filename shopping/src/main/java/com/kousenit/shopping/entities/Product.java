@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "products", indexes = {
     @Index(name = "idx_product_sku", columnList = "sku", unique = true),
-    @Index(name = "idx_product_name", columnList = "name")
+    @Index(name = "idx_product_name_id", columnList = "name, id"),
+    @Index(name = "idx_product_price_id", columnList = "price, id")
 })
 @Data
 @NoArgsConstructor
@@ -23,6 +24,11 @@ public class Product {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Optimistic lock; bulk UPDATE queries in ProductRepository bump it explicitly
+    @Version
+    @Column(nullable = false)
+    private Long version;
+    
     @NotBlank(message = "Product name is required")
     @Size(min = 3, max = 100, message = "Product name must be between 3 and 100 characters")
     @Column(nullable = false)
@@ -38,10 +44,10 @@ public class Product {
     @Column(length = 500)
     private String description;
     
+    // Primitive so stock checks and updates never box; ProductRequest still requires a value
     @Min(value = 0, message = "Quantity cannot be negative")
-    @NotNull(message = "Quantity is required")
     @Column(nullable = false)
-    private Integer quantity;
+    private int quantity;
     
     @NotBlank(message = "SKU is required")
     @Pattern(regexp = "^[A-Z]{3}-[0-9]{6}$", 
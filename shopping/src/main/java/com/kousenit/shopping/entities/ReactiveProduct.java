@@ -0,0 +1,50 @@
+package com.kousenit.shopping.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC mapping of the {@code products} table used by the reactive API. The schema is owned
+ * by the JPA {@link Product} entity; this class only mirrors its columns. Bean validation and
+ * the timestamp callbacks of the JPA entity do not apply here, so the reactive service sets
+ * the timestamps itself. Updates check and bump the same {@code version} column as JPA.
+ */
+@Table("products")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReactiveProduct {
+    
+    @Id
+    private Long id;
+    
+    @Version
+    private Long version;
+    
+    private String name;
+    
+    private BigDecimal price;
+    
+    private String description;
+    
+    private Integer quantity;
+    
+    private String sku;
+    
+    @Column("contact_email")
+    private String contactEmail;
+    
+    @Column("created_at")
+    private LocalDateTime createdAt;
+    
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,65 @@
+package com.kousenit.shopping.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outstanding stock hold. The row exists while the hold's stock is reserved and waiting
+ * to be confirmed, cancelled or expired; whoever deletes it settles the hold. The
+ * {@code StockHolds} timer wheel is rebuilt from these rows at startup.
+ * <p>
+ * The id is assigned by the application, so the entity reports itself new until it has been
+ * persisted or loaded; {@code save} then inserts it directly instead of merging, which would
+ * first select the row.
+ */
+@Entity
+@Table(name = "stock_holds")
+@Data
+@NoArgsConstructor
+public class StockHold implements Persistable<String> {
+    
+    @Id
+    @Column(length = 36)
+    private String id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    private String sku;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean stored;
+    
+    public StockHold(String id, Long productId, String sku, Integer quantity, LocalDateTime expiresAt) {
+        this.id = id;
+        this.productId = productId;
+        this.sku = sku;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return !stored;
+    }
+    
+    @PostLoad
+    @PostPersist
+    protected void onStored() {
+        stored = true;
+    }
+}
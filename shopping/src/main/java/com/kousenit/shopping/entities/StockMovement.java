@@ -0,0 +1,60 @@
+package com.kousenit.shopping.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the append-only stock journal. Rows are written in batches by the
+ * {@code StockJournal} and never updated.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = {
+    @Index(name = "idx_stock_movement_product_version", columnList = "product_id, product_version, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    // Product row version the movement was written with; orders one product's movements
+    @Column(name = "product_version", nullable = false)
+    private Long productVersion;
+    
+    private String sku;
+    
+    @Column(nullable = false)
+    private Integer delta;
+    
+    // Quantity after the movement
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Reason reason;
+    
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+    
+    public enum Reason {
+        CREATED, UPDATED, DELETED, RESERVATION, RESTOCK, ADJUSTMENT;
+        
+        /**
+         * Whether the movement sets the quantity outright instead of applying its delta.
+         */
+        public boolean isAbsolute() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.kousenit.shopping.events;
+
+/**
+ * Published by {@code LowStockTracker} when a product's stock crosses the low-stock
+ * threshold in either direction.
+ */
+public record LowStockAlert(
+    Long productId,
+    String sku,
+    int quantity,
+    int threshold,
+    Crossing crossing
+) {
+    
+    public enum Crossing {
+        BELOW_THRESHOLD, RESTOCKED
+    }
+}
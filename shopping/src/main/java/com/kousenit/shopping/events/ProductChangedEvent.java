@@ -0,0 +1,32 @@
+package com.kousenit.shopping.events;
+
+import com.kousenit.shopping.dto.ProductResponse;
+
+/**
+ * Published by {@code ProductService} when a product is created, updated or deleted.
+ * {@code product} holds the state after the change and {@code version} the row version it was
+ * written with; both are {@code null} for deletions.
+ */
+public record ProductChangedEvent(
+    Long productId,
+    ChangeType changeType,
+    ProductResponse product,
+    Long version
+) {
+    
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+    
+    public static ProductChangedEvent created(ProductResponse product, Long version) {
+        return new ProductChangedEvent(product.id(), ChangeType.CREATED, product, version);
+    }
+    
+    public static ProductChangedEvent updated(ProductResponse product, Long version) {
+        return new ProductChangedEvent(product.id(), ChangeType.UPDATED, product, version);
+    }
+    
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, ChangeType.DELETED, null, null);
+    }
+}
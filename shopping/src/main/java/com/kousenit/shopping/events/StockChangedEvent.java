@@ -0,0 +1,29 @@
+package com.kousenit.shopping.events;
+
+/**
+ * Published whenever the stock quantity of a product changes through a stock operation
+ * (reserve, add or set), whichever path served it. Changes made through a full product
+ * update are reported by {@link ProductChangedEvent} instead.
+ * <p>
+ * {@code version} is the product row version the change was written with. Writes to one
+ * product commit in version order, so it orders that product's changes where publication
+ * or arrival order may not. Changes served by the {@code StockLedger} carry the version the
+ * ledger loaded, which precedes every later write through another path.
+ */
+public record StockChangedEvent(
+    Long productId,
+    String sku,
+    int previousQuantity,
+    int quantity,
+    Reason reason,
+    Long version
+) {
+    
+    public enum Reason {
+        RESERVATION, RESTOCK, ADJUSTMENT
+    }
+    
+    public int delta() {
+        return quantity - previousQuantity;
+    }
+}
@@ -0,0 +1,13 @@
+package com.kousenit.shopping.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class StockHoldNotFoundException extends RuntimeException {
+    private final String holdId;
+    
+    public StockHoldNotFoundException(String holdId) {
+        super("No active stock hold with id: " + holdId);
+        this.holdId = holdId;
+    }
+}
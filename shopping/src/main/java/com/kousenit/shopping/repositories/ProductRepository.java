@@ -1,19 +1,39 @@
 package com.kousenit.shopping.repositories;
 
+import com.kousenit.shopping.dto.ProductName;
+import com.kousenit.shopping.dto.ProductPrice;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockLevel;
 import com.kousenit.shopping.entities.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
+    // Selects a row straight into a ProductResponse, skipping entity hydration and dirty tracking
+    String RESPONSE = "new com.kousenit.shopping.dto.ProductResponse(p.id, p.name, p.price, p.description, " +
+                      "p.quantity, p.sku, p.contactEmail, p.createdAt, p.updatedAt)";
+    
     // Derived query methods
     Optional<Product> findBySku(String sku);
     
@@ -30,20 +50,130 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     long countByQuantityLessThan(Integer quantity);
     
+    // Feeds the in-memory search index without hydrating entities
+    @Query("SELECT new com.kousenit.shopping.dto.ProductName(p.id, p.name) FROM Product p")
+    List<ProductName> findAllProductNames();
+    
+    // Feeds the in-memory price index
+    @Query("SELECT new com.kousenit.shopping.dto.ProductPrice(p.id, p.price) FROM Product p")
+    List<ProductPrice> findAllProductPrices();
+    
+    // Lets the bulk import check a whole batch of SKUs with one query
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    List<String> findExistingSkus(@Param("skus") Collection<String> skus);
+    
+    // Read-only projections; results are not attached to the persistence context
+    @Query(value = "SELECT " + RESPONSE + " FROM Product p",
+           countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductResponse> findAllResponses(Pageable pageable);
+    
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Keyset pagination over (name, id); see idx_product_name_id
+    @Query("SELECT " + RESPONSE + " FROM Product p ORDER BY p.name ASC, p.id ASC")
+    List<ProductResponse> findFirstResponsesByName(Limit limit);
+    
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.name > :name OR (p.name = :name AND p.id > :id) " +
+           "ORDER BY p.name ASC, p.id ASC")
+    List<ProductResponse> findResponsePageAfter(@Param("name") String name, @Param("id") Long id, Limit limit);
+    
+    // Ordered by id so that pages are stable between requests; a slice reads one row past the page
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE UPPER(p.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+           "ORDER BY p.id")
+    Slice<ProductResponse> findResponsesByNameContaining(@Param("name") String name, Pageable pageable);
+    
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE UPPER(p.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+           "AND p.price BETWEEN :minPrice AND :maxPrice ORDER BY p.id")
+    Slice<ProductResponse> findResponsesByNameContainingAndPriceBetween(
+        @Param("name") String name, @Param("minPrice") BigDecimal minPrice,
+        @Param("maxPrice") BigDecimal maxPrice, Pageable pageable);
+    
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice " +
+           "ORDER BY p.price ASC, p.id ASC")
+    List<ProductResponse> findResponsesByPriceBetween(@Param("minPrice") BigDecimal minPrice,
+                                                      @Param("maxPrice") BigDecimal maxPrice, Limit limit);
+    
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.quantity < :threshold ORDER BY p.quantity ASC, p.id ASC")
+    List<ProductResponse> findLowStockResponses(@Param("threshold") Integer threshold, Limit limit);
+    
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.price >= :minPrice ORDER BY p.price DESC, p.id DESC")
+    List<ProductResponse> findExpensiveResponses(@Param("minPrice") BigDecimal minPrice, Limit limit);
+    
     // Custom queries
     @Query("SELECT p FROM Product p WHERE p.quantity < :threshold ORDER BY p.quantity ASC")
     List<Product> findLowStockProducts(@Param("threshold") Integer threshold);
     
+    @Query("SELECT new com.kousenit.shopping.dto.StockLevel(p.id, p.sku, p.quantity) FROM Product p " +
+           "WHERE p.quantity < :threshold ORDER BY p.quantity ASC, p.id ASC")
+    List<StockLevel> findLowStockLevels(@Param("threshold") Integer threshold, Limit limit);
+    
+    // Feeds the in-memory low-stock tracker
+    @Query("SELECT new com.kousenit.shopping.dto.StockLevel(p.id, p.sku, p.quantity) FROM Product p")
+    List<StockLevel> findAllStockLevels();
+    
     @Query("SELECT p FROM Product p WHERE p.price >= :minPrice ORDER BY p.price DESC")
     List<Product> findExpensiveProducts(@Param("minPrice") BigDecimal minPrice);
     
+    // Bulk updates bypass the entity, so they bump the version to fail concurrent entity writes
+    // and set updatedAt themselves, which the product's ETag is derived from
     @Modifying
-    @Query("UPDATE Product p SET p.quantity = p.quantity - :amount WHERE p.id = :id")
-    void decrementStock(@Param("id") Long id, @Param("amount") Integer amount);
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :amount, p.updatedAt = :now, " +
+           "p.version = p.version + 1 WHERE p.id = :id")
+    void decrementStock(@Param("id") Long id, @Param("amount") Integer amount, @Param("now") LocalDateTime now);
     
     @Modifying
-    @Query("UPDATE Product p SET p.quantity = p.quantity + :amount WHERE p.id = :id")
-    void incrementStock(@Param("id") Long id, @Param("amount") Integer amount);
+    @Query("UPDATE Product p SET p.quantity = p.quantity + :amount, p.updatedAt = :now, " +
+           "p.version = p.version + 1 WHERE p.id = :id")
+    void incrementStock(@Param("id") Long id, @Param("amount") Integer amount, @Param("now") LocalDateTime now);
+    
+    // Conditional decrement: returns 0 when the product is missing or has too little stock
+    @Modifying
+    @Query("UPDATE Product p SET p.quantity = p.quantity - :amount, p.updatedAt = :now, " +
+           "p.version = p.version + 1 WHERE p.id = :id AND p.quantity >= :amount")
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("amount") Integer amount,
+                                  @Param("now") LocalDateTime now);
+    
+    // Carries the version written by the last bulk update, which does not pass through an entity
+    @Query("SELECT new com.kousenit.shopping.dto.StockLevel(p.id, p.sku, p.quantity, p.version) " +
+           "FROM Product p WHERE p.id = :id")
+    Optional<StockLevel> findStockLevelById(@Param("id") Long id);
+    
+    // Locks rows in id order so concurrent multi-line reservations cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
+    // Forward-only, read-only cursor for full catalog exports; callers must close the stream
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllByOrderById();
+    
+    // Cursors behind the NDJSON list responses, in the same order as the list queries above;
+    // callers must close the stream
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.quantity < :threshold ORDER BY p.quantity ASC, p.id ASC")
+    Stream<ProductResponse> streamLowStockResponses(@Param("threshold") Integer threshold);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.price >= :minPrice ORDER BY p.price DESC, p.id DESC")
+    Stream<ProductResponse> streamExpensiveResponses(@Param("minPrice") BigDecimal minPrice);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice " +
+           "ORDER BY p.price ASC, p.id ASC")
+    Stream<ProductResponse> streamResponsesByPriceBetween(@Param("minPrice") BigDecimal minPrice,
+                                                          @Param("maxPrice") BigDecimal maxPrice);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + RESPONSE + " FROM Product p WHERE UPPER(p.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+           "AND p.price BETWEEN :minPrice AND :maxPrice ORDER BY p.id")
+    Stream<ProductResponse> streamResponsesByNameContainingAndPriceBetween(
+        @Param("name") String name, @Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
     
     // Native query example
     @Query(value = "SELECT * FROM products WHERE price > :price AND quantity > 0 ORDER BY created_at DESC LIMIT :limit", 
@@ -0,0 +1,18 @@
+package com.kousenit.shopping.repositories;
+
+import com.kousenit.shopping.entities.ReactiveProduct;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveProductRepository extends R2dbcRepository<ReactiveProduct, Long> {
+    
+    Mono<ReactiveProduct> findBySku(String sku);
+    
+    Mono<Boolean> existsBySku(String sku);
+    
+    Flux<ReactiveProduct> findByNameContainingIgnoreCase(String name, Sort sort);
+}
@@ -0,0 +1,19 @@
+package com.kousenit.shopping.repositories;
+
+import com.kousenit.shopping.entities.StockHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, String> {
+    
+    // Claims a hold: returns 0 when another request or node already settled it
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockHold h WHERE h.id = :id")
+    int deleteHold(@Param("id") String id);
+}
@@ -0,0 +1,15 @@
+package com.kousenit.shopping.repositories;
+
+import com.kousenit.shopping.entities.StockMovement;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    // Newest first; see idx_stock_movement_product_version
+    List<StockMovement> findByProductIdOrderByProductVersionDescIdDesc(Long productId, Limit limit);
+}
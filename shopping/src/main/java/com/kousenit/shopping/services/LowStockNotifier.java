@@ -0,0 +1,171 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.events.LowStockAlert;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pushes {@link LowStockAlert}s to Server-Sent Events subscribers.
+ * <p>
+ * A new subscriber first receives a {@code snapshot} event with every product currently below
+ * the threshold, then one {@code low-stock} event per threshold crossing. Each subscriber has
+ * its own queue, drained by one sender at a time from a shared pool, so a slow client never
+ * holds up the request that changed the stock or the other subscribers, and each subscriber
+ * sees events in the order they were broadcast. A subscriber that falls more than
+ * {@code max-pending-events} behind is disconnected. A periodic comment line keeps idle
+ * connections open through proxies and detects clients that have gone away.
+ */
+@Component
+@Slf4j
+public class LowStockNotifier {
+
+    private final LowStockTracker lowStockTracker;
+    private final int maxPendingEvents;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger senderThreads = new AtomicInteger();
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-notifier-" + senderThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LowStockNotifier(LowStockTracker lowStockTracker,
+                            @Value("${shopping.low-stock.max-pending-events:256}") int maxPendingEvents) {
+        this.lowStockTracker = lowStockTracker;
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::detach);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscriber.detach());
+
+        // Queued before the subscriber joins a broadcast, so it always comes first
+        subscriber.enqueue(() -> SseEmitter.event()
+            .name("snapshot")
+            .data(lowStockTracker.isReady()
+                ? lowStockTracker.findBelow(lowStockTracker.getThreshold())
+                : List.of()));
+        subscribers.add(subscriber);
+        log.debug("Low-stock subscriber added ({} active)", subscribers.size());
+        return emitter;
+    }
+
+    @EventListener
+    public void onLowStockAlert(LowStockAlert alert) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        String id = Long.toString(sequence.incrementAndGet());
+        broadcast(() -> SseEmitter.event()
+            .id(id)
+            .name("low-stock")
+            .data(alert));
+    }
+
+    @Scheduled(fixedDelayString = "${shopping.low-stock.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            broadcast(() -> SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    // Serialized so that every subscriber queues concurrent broadcasts in the same order
+    private synchronized void broadcast(Supplier<SseEmitter.SseEventBuilder> event) {
+        subscribers.forEach(subscriber -> subscriber.enqueue(event));
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Supplier<SseEmitter.SseEventBuilder>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean detached = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void enqueue(Supplier<SseEmitter.SseEventBuilder> event) {
+            if (detached.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPendingEvents) {
+                log.debug("Dropping low-stock subscriber {} events behind", maxPendingEvents);
+                close();
+                return;
+            }
+            pending.add(event);
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Supplier<SseEmitter.SseEventBuilder> event;
+                while (!detached.get() && (event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    send(event);
+                }
+                draining.set(false);
+                // An event queued after the last poll but before the flag was cleared
+            } while (!detached.get() && !pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        // Event builders are single-use, so each subscriber gets its own
+        private void send(Supplier<SseEmitter.SseEventBuilder> event) {
+            try {
+                emitter.send(event.get());
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping low-stock subscriber: {}", e.getMessage());
+                detach();
+            }
+        }
+
+        private void detach() {
+            if (detached.compareAndSet(false, true)) {
+                subscribers.remove(this);
+                pending.clear();
+            }
+        }
+
+        // Completed on a sender thread: a stalled send holds the emitter's lock
+        private void close() {
+            detach();
+            senders.execute(emitter::complete);
+        }
+    }
+}
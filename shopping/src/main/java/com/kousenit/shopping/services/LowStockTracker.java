@@ -0,0 +1,227 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.events.LowStockAlert;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of stock levels ordered by quantity.
+ * <p>
+ * Levels are held in a skip list sorted by quantity and then id, so "everything below
+ * {@code n}" is a head set rather than a table scan. The view is seeded when the application
+ * is ready and then maintained from {@link StockChangedEvent}s and {@link ProductChangedEvent}s.
+ * Stock events are applied as deltas, so events that are delivered out of order still converge
+ * on the right quantity. A periodic resync from the database repairs any drift.
+ * <p>
+ * Every change is stamped from a counter. A resync notes the counter before it reads and then
+ * leaves alone any product that an event changed or removed since, because its row may have
+ * been read before that change committed. Such a product is repaired on the next resync.
+ * Changes made through the {@link StockLedger} are published before they reach the database,
+ * so a resync first flushes the ledger, after noting the counter: anything older is then in
+ * the rows it reads, anything newer is stamped after it. If the flush fails the resync is
+ * skipped rather than overwriting the view with rows that are missing ledger deltas.
+ * <p>
+ * When a product crosses the configured threshold in either direction, a {@link LowStockAlert}
+ * is published for the {@link LowStockNotifier} to push to subscribers.
+ */
+@Component
+@Slf4j
+public class LowStockTracker {
+
+    private static final Comparator<Level> BY_QUANTITY =
+        Comparator.comparingInt(Level::quantity).thenComparingLong(Level::id);
+
+    private final ProductRepository productRepository;
+    private final StockLedger stockLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int threshold;
+    private final boolean enabled;
+
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+    private final NavigableSet<Level> byQuantity = new ConcurrentSkipListSet<>(BY_QUANTITY);
+    // Stamp of the last removal per product, so a resync does not bring back a deleted product
+    private final Map<Long, Long> removedAt = new ConcurrentHashMap<>();
+    private final AtomicLong changes = new AtomicLong();
+    private volatile boolean ready;
+
+    public LowStockTracker(ProductRepository productRepository,
+                           StockLedger stockLedger,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${shopping.low-stock.threshold:10}") int threshold,
+                           @Value("${shopping.low-stock.tracker.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.stockLedger = stockLedger;
+        this.eventPublisher = eventPublisher;
+        this.threshold = threshold;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long readFrom = changes.get();
+        if (!stockLedger.flushPending()) {
+            log.warn("Skipping low-stock resync until the stock ledger flushes");
+            return;
+        }
+        List<StockLevel> stockLevels = productRepository.findAllStockLevels();
+        boolean silent = !ready;
+        stockLevels.forEach(level -> {
+            Long removed = removedAt.get(level.id());
+            if (removed == null || removed <= readFrom) {
+                apply(level.id(), level.sku(), current -> level.quantity(), silent, readFrom);
+            }
+        });
+        Set<Long> known = stockLevels.stream().map(StockLevel::id).collect(Collectors.toSet());
+        levels.keySet().stream()
+            .filter(id -> !known.contains(id))
+            .toList()
+            .forEach(id -> remove(id, readFrom));
+        // Removals older than this read are reflected in it
+        removedAt.values().removeIf(stamp -> stamp <= readFrom);
+        ready = true;
+        log.info("Low-stock tracker synced for {} products", levels.size());
+    }
+
+    @Scheduled(initialDelayString = "${shopping.low-stock.resync-interval-ms:300000}",
+               fixedDelayString = "${shopping.low-stock.resync-interval-ms:300000}")
+    public void resync() {
+        if (isReady()) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        int delta = event.quantity() - event.previousQuantity();
+        apply(event.productId(), event.sku(),
+            current -> current != null ? current.quantity() + delta : event.quantity(), false, Long.MAX_VALUE);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.changeType() == ProductChangedEvent.ChangeType.DELETED) {
+            remove(event.productId());
+        } else {
+            apply(event.productId(), event.product().sku(), current -> event.product().quantity(),
+                false, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Products whose quantity is below {@code below}, lowest first.
+     */
+    public List<StockLevel> findBelow(int below) {
+        return findBelow(below, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The {@code limit} lowest levels below {@code below}; only those entries are copied.
+     */
+    public List<StockLevel> findBelow(int below, int limit) {
+        return byQuantity.headSet(new Level(Long.MIN_VALUE, null, below, 0), false).stream()
+            .limit(limit)
+            .map(level -> new StockLevel(level.id(), level.sku(), level.quantity()))
+            .toList();
+    }
+
+    public int size() {
+        return levels.size();
+    }
+
+    public void remove(Long id) {
+        removedAt.put(id, changes.incrementAndGet());
+        remove(id, Long.MAX_VALUE);
+    }
+
+    private void remove(Long id, long unchangedSince) {
+        levels.computeIfPresent(id, (key, current) -> {
+            if (current.stamp() > unchangedSince) {
+                return current;
+            }
+            byQuantity.remove(current);
+            return null;
+        });
+    }
+
+    /**
+     * Updates one product under the map's per-key lock, so the map and the sorted set never
+     * disagree about a product for longer than the call. {@code quantity} receives the current
+     * level, or {@code null} for a product that is not tracked yet. A product changed after
+     * {@code unchangedSince} is left as it is.
+     */
+    private void apply(Long id, String sku, ToIntFunction<Level> quantity, boolean silent, long unchangedSince) {
+        Level[] previous = new Level[1];
+        Level updated = levels.compute(id, (key, current) -> {
+            previous[0] = current;
+            if (current != null && current.stamp() > unchangedSince) {
+                return current;
+            }
+            Level next = new Level(id, sku, quantity.applyAsInt(current), changes.incrementAndGet());
+            if (current != null) {
+                byQuantity.remove(current);
+            }
+            byQuantity.add(next);
+            return next;
+        });
+        if (!silent) {
+            announceCrossing(previous[0], updated);
+        }
+    }
+
+    private void announceCrossing(Level previous, Level updated) {
+        if (previous == updated) {
+            return;
+        }
+        boolean wasLow = previous != null && previous.quantity() < threshold;
+        boolean isLow = updated.quantity() < threshold;
+        if (wasLow == isLow) {
+            return;
+        }
+        LowStockAlert.Crossing crossing = isLow
+            ? LowStockAlert.Crossing.BELOW_THRESHOLD
+            : LowStockAlert.Crossing.RESTOCKED;
+        log.debug("Product {} {} at quantity {}", updated.id(), crossing, updated.quantity());
+        eventPublisher.publishEvent(
+            new LowStockAlert(updated.id(), updated.sku(), updated.quantity(), threshold, crossing));
+    }
+
+    private record Level(long id, String sku, int quantity, long stamp) {}
+}
@@ -0,0 +1,65 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.config.CacheConfig;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Programmatic eviction for the write paths that touch several products at once or run
+ * outside a proxied service method, where {@code @CacheEvict} cannot express the keys.
+ * Inside a transaction the eviction is deferred until after commit, so a concurrent read
+ * cannot put the pre-commit row back into the cache.
+ * <p>
+ * Committed product and stock change events are handled here too. The Spring caches are
+ * always evicted before the {@link ProductJsonCache}, in the same callback, so a JSON cache
+ * miss cannot be refilled from a Spring cache entry that is about to go.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCacheEvictor {
+    
+    private final CacheManager cacheManager;
+    private final ProductJsonCache productJsonCache;
+    
+    public void evict(Long id, String sku) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id, sku);
+                }
+            });
+        } else {
+            evictNow(id, sku);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evictNow(event.productId(), event.product() != null ? event.product().sku() : null);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        evictNow(event.productId(), event.sku());
+    }
+    
+    private void evictNow(Long id, String sku) {
+        Cache products = cacheManager.getCache(CacheConfig.PRODUCTS);
+        if (products != null) {
+            products.evict(id);
+        }
+        Cache productsBySku = cacheManager.getCache(CacheConfig.PRODUCTS_BY_SKU);
+        if (productsBySku != null && sku != null) {
+            productsBySku.evict(sku);
+        }
+        productJsonCache.invalidate(id);
+    }
+}
@@ -0,0 +1,94 @@
+package com.kousenit.shopping.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.repositories.ProductRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the whole catalog as newline-delimited JSON in constant memory: rows come from a
+ * forward-only cursor, each entity is detached as soon as it has been written, and a single
+ * Jackson generator is reused for every line.
+ * <p>
+ * The filtered list endpoints stream the same way when asked for NDJSON, reading rows straight
+ * into {@link ProductResponse} so there is nothing to detach.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductExportService {
+    
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    
+    @Transactional(readOnly = true)
+    public long exportCatalog(OutputStream out) throws IOException {
+        log.info("Exporting product catalog as NDJSON");
+        long count = writeLines(productRepository.streamAllByOrderById().map(product -> {
+            ProductResponse response = ProductResponse.from(product);
+            entityManager.detach(product);
+            return response;
+        }), out);
+        log.info("Exported {} products", count);
+        return count;
+    }
+    
+    @Transactional(readOnly = true)
+    public long exportLowStock(Integer threshold, OutputStream out) throws IOException {
+        return writeLines(productRepository.streamLowStockResponses(threshold), out);
+    }
+    
+    @Transactional(readOnly = true)
+    public long exportExpensive(BigDecimal minPrice, OutputStream out) throws IOException {
+        return writeLines(productRepository.streamExpensiveResponses(minPrice), out);
+    }
+    
+    @Transactional(readOnly = true)
+    public long exportPriceRange(BigDecimal minPrice, BigDecimal maxPrice, OutputStream out) throws IOException {
+        return writeLines(productRepository.streamResponsesByPriceBetween(minPrice, maxPrice), out);
+    }
+    
+    @Transactional(readOnly = true)
+    public long exportSearch(String name, BigDecimal minPrice, BigDecimal maxPrice, OutputStream out)
+            throws IOException {
+        return writeLines(
+            productRepository.streamResponsesByNameContainingAndPriceBetween(name, minPrice, maxPrice), out);
+    }
+    
+    // Closes the row stream, and with it the cursor, but leaves the output open for the container
+    private long writeLines(Stream<ProductResponse> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ProductResponse.class)
+            .withRootValueSeparator("\n")
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        
+        long count = 0;
+        try (rows; SequenceWriter lines = writer.writeValues(out)) {
+            Iterator<ProductResponse> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                lines.write(iterator.next());
+                count++;
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+}
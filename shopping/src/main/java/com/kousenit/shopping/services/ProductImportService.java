@@ -0,0 +1,259 @@
+package com.kousenit.shopping.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.kousenit.shopping.dto.ImportError;
+import com.kousenit.shopping.dto.ImportResult;
+import com.kousenit.shopping.dto.ProductRequest;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.exceptions.ProductValidationException;
+import com.kousenit.shopping.repositories.ProductRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Loads products from newline-delimited JSON, one {@link ProductRequest} per line, in constant
+ * memory apart from the set of SKUs already seen.
+ * <p>
+ * Each line is checked with the same bean validation and business rules as a single create,
+ * and rejected lines are reported with their line number instead of failing the import. Valid
+ * rows are written in batches of {@code shopping.import.batch-size} with one JDBC batch insert
+ * per batch and one transaction per batch. Hibernate cannot batch inserts into the
+ * {@code IDENTITY} id column, so the insert goes through {@link JdbcTemplate} and reads the
+ * generated ids back to publish {@link ProductChangedEvent}s for the in-memory indexes. If a
+ * batch still fails, for example because a concurrent create took one of its SKUs, its rows
+ * are retried one at a time so only the offending rows are rejected.
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    private static final String INSERT_SQL = "INSERT INTO products " +
+        "(name, price, description, quantity, sku, contact_email, created_at, updated_at, version) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader requestReader;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(ProductRepository productRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${shopping.import.batch-size:1000}") int batchSize,
+                                @Value("${shopping.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requestReader = objectMapper.readerFor(ProductRequest.class);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportResult importCatalog(InputStream in) throws IOException {
+        log.info("Importing products from NDJSON in batches of {}", batchSize);
+        Report report = new Report(maxReportedErrors);
+        Set<String> seenSkus = new HashSet<>();
+        List<Row> batch = new ArrayList<>(batchSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.processed++;
+
+            ProductRequest request;
+            try {
+                request = requestReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                report.reject(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            if (request == null) {
+                report.reject(lineNumber, null, "Expected a product object");
+                continue;
+            }
+            String error = validate(request);
+            if (error != null) {
+                report.reject(lineNumber, request.sku(), error);
+                continue;
+            }
+            if (!seenSkus.add(request.sku())) {
+                report.reject(lineNumber, request.sku(), "Duplicate SKU " + request.sku() + " earlier in the import");
+                continue;
+            }
+
+            batch.add(new Row(lineNumber, request));
+            if (batch.size() == batchSize) {
+                flush(batch, report);
+                batch.clear();
+            }
+        }
+        flush(batch, report);
+
+        log.info("Imported {} of {} products ({} rejected)", report.imported, report.processed, report.rejected);
+        return report.toResult();
+    }
+
+    private String validate(ProductRequest request) {
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        }
+        try {
+            ProductService.validateProductRequest(request);
+            return null;
+        } catch (ProductValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void flush(List<Row> batch, Report report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> existing = new HashSet<>(productRepository.findExistingSkus(
+            batch.stream().map(row -> row.request().sku()).toList()));
+        List<Row> fresh = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            if (existing.contains(row.request().sku())) {
+                report.reject(row.line(), row.request().sku(),
+                    "Product with SKU " + row.request().sku() + " already exists");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(fresh));
+            report.imported += fresh.size();
+        } catch (DataAccessException e) {
+            log.warn("Batch insert of {} products failed, retrying row by row: {}", fresh.size(), e.getMessage());
+            for (Row row : fresh) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(row)));
+                    report.imported++;
+                } catch (DataAccessException rowFailure) {
+                    report.reject(row.line(), row.request().sku(), "Row conflicts with existing data");
+                }
+            }
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_SQL, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ProductRequest request = rows.get(i).request();
+                    ps.setString(1, request.name());
+                    ps.setBigDecimal(2, request.price());
+                    ps.setString(3, request.description());
+                    ps.setInt(4, request.quantity());
+                    ps.setString(5, request.sku());
+                    if (request.contactEmail() != null) {
+                        ps.setString(6, request.contactEmail());
+                    } else {
+                        ps.setNull(6, Types.VARCHAR);
+                    }
+                    ps.setTimestamp(7, timestamp);
+                    ps.setTimestamp(8, timestamp);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            },
+            keys);
+
+        // Listeners are transactional, so the indexes only see rows that were committed
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < rows.size(); i++) {
+            ProductRequest request = rows.get(i).request();
+            Long id = ((Number) generated.get(i).values().iterator().next()).longValue();
+            eventPublisher.publishEvent(ProductChangedEvent.created(new ProductResponse(
+                id, request.name(), request.price(), request.description(), request.quantity(),
+                request.sku(), request.contactEmail(), now, now), 0L));
+        }
+    }
+
+    private record Row(long line, ProductRequest request) {
+    }
+
+    private static final class Report {
+        private final int maxErrors;
+        private final List<ImportError> errors = new ArrayList<>();
+        private long processed;
+        private long imported;
+        private long rejected;
+
+        private Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        private void reject(long line, String sku, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportError(line, sku, message));
+            }
+        }
+
+        private ImportResult toResult() {
+            return new ImportResult(processed, imported, rejected, List.copyOf(errors));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.kousenit.shopping.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kousenit.shopping.dto.ProductResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Product detail responses kept as ready-to-send UTF-8 JSON, together with their validator.
+ * <p>
+ * A hit skips the lookup, the mapping to {@link ProductResponse} and Jackson entirely; the
+ * bytes are written to the response as they are. The cache is bounded by the total size of
+ * the payloads. Entries are dropped by {@link ProductCacheEvictor} after every committed
+ * product or stock change, right after the Spring product caches, so a miss here never reloads
+ * the stale object from them. Each drop also bumps the product's stamp, and a payload is only
+ * stored if its stamp did not move while the product was being read. Stamps are striped over a
+ * fixed array, so a change to another product may occasionally turn a put into a no-op, but
+ * never the reverse. Entries also expire after a fixed time, like the Spring caches, which
+ * bounds anything a read racing the eviction manages to store.
+ */
+@Component
+public class ProductJsonCache {
+
+    // Power of two, so a stamp slot is picked with a mask
+    private static final int STAMP_SLOTS = 4096;
+
+    private final ObjectWriter writer;
+    private final Cache<Long, Entry> entries;
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_SLOTS);
+
+    public ProductJsonCache(ObjectMapper objectMapper,
+                            @Value("${shopping.http.json-cache.max-bytes:33554432}") long maxBytes,
+                            @Value("${shopping.http.json-cache.expire-after-write-seconds:600}") long expireSeconds) {
+        this.writer = objectMapper.writerFor(ProductResponse.class);
+        this.entries = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Long id, Entry entry) -> entry.json().length)
+            .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+            .build();
+    }
+
+    public Entry get(Long id) {
+        return entries.getIfPresent(id);
+    }
+
+    /**
+     * Read before loading product {@code id} and pass to {@link #put(ProductResponse, long)}.
+     */
+    public long stamp(Long id) {
+        return stamps.get(slot(id));
+    }
+
+    /**
+     * Serializes {@code product} and stores it unless it was invalidated since
+     * {@code stampBeforeRead}. The entry is returned either way.
+     */
+    public Entry put(ProductResponse product, long stampBeforeRead) {
+        Entry entry = new Entry(ProductVersions.of(product), serialize(product));
+        entries.asMap().compute(product.id(), (id, current) ->
+            stamps.get(slot(id)) == stampBeforeRead ? entry : current);
+        return entry;
+    }
+
+    /**
+     * Called by {@link ProductCacheEvictor} once the Spring product caches are evicted.
+     */
+    public void invalidate(Long id) {
+        stamps.incrementAndGet(slot(id));
+        entries.invalidate(id);
+    }
+
+    public void clear() {
+        for (int i = 0; i < STAMP_SLOTS; i++) {
+            stamps.incrementAndGet(i);
+        }
+        entries.invalidateAll();
+    }
+
+    private static int slot(Long id) {
+        return Long.hashCode(id) & (STAMP_SLOTS - 1);
+    }
+
+    private byte[] serialize(ProductResponse product) {
+        try {
+            return writer.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param validator {@code null} if the product has no timestamp
+     */
+    public record Entry(ProductVersions.Validator validator, byte[] json) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductPrice;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * Sorted in-memory index of product prices.
+ * <p>
+ * Prices are held as whole cents and packed together with the product id into a single
+ * {@code long} sort key ({@code cents << 36 | id}), so one concurrent skip list orders
+ * products by price and then id. Range and "at least" queries become sub-set views
+ * of that list; only the matching ids come out of it, which the caller still resolves to
+ * products. Ids must fit in 36 bits, which the identity column will not exceed in practice.
+ * Stored prices are bounded by the entity validation, so query bounds are clamped to just
+ * past that ceiling: any larger bound selects the same rows and could not be packed.
+ */
+@Component
+@Slf4j
+public class ProductPriceIndex {
+
+    private static final int ID_BITS = 36;
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+    // One past the largest valid price (999,999.99); well inside the 27 bits left for cents
+    private static final long CENTS_CEILING = 100_000_000L;
+    private static final BigDecimal CEILING_PRICE = BigDecimal.valueOf(CENTS_CEILING, 2);
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final NavigableSet<Long> keys = new ConcurrentSkipListSet<>();
+    private final Map<Long, Long> centsById = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public ProductPriceIndex(ProductRepository productRepository,
+                             @Value("${shopping.price.index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        ready = false;
+        keys.clear();
+        centsById.clear();
+        List<ProductPrice> prices = productRepository.findAllProductPrices();
+        prices.forEach(price -> index(price.id(), price.price()));
+        ready = true;
+        log.info("Price index built for {} products", centsById.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.changeType() == ProductChangedEvent.ChangeType.DELETED) {
+            remove(event.productId());
+        } else {
+            index(event.productId(), event.product().price());
+        }
+    }
+
+    public void index(Long id, BigDecimal price) {
+        long cents = toCents(price, RoundingMode.HALF_UP);
+        Long previous = centsById.put(id, cents);
+        if (previous != null) {
+            if (previous == cents) {
+                return;
+            }
+            keys.remove(pack(previous, id));
+        }
+        keys.add(pack(cents, id));
+    }
+
+    public void remove(Long id) {
+        Long previous = centsById.remove(id);
+        if (previous != null) {
+            keys.remove(pack(previous, id));
+        }
+    }
+
+    /**
+     * Ids with {@code min <= price <= max}, cheapest first, at most {@code limit} of them.
+     */
+    public List<Long> findIdsInRange(BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        long minCents = Math.max(toCents(minPrice, RoundingMode.CEILING), 0);
+        long maxCents = toCents(maxPrice, RoundingMode.FLOOR);
+        if (minCents > maxCents) {
+            return List.of();
+        }
+        return collect(keys.subSet(pack(minCents, 0), true, pack(maxCents, ID_MASK), true), limit);
+    }
+
+    /**
+     * Ids with {@code price >= min}, most expensive first, at most {@code limit} of them.
+     */
+    public List<Long> findIdsAtLeast(BigDecimal minPrice, int limit) {
+        long minCents = Math.max(toCents(minPrice, RoundingMode.CEILING), 0);
+        return collect(keys.tailSet(pack(minCents, 0), true).descendingSet(), limit);
+    }
+
+    public boolean isInRange(Long id, BigDecimal minPrice, BigDecimal maxPrice) {
+        return rangeFilter(minPrice, maxPrice).test(id);
+    }
+
+    /**
+     * Filter for ids with {@code min <= price <= max}. The bounds are converted to cents once,
+     * so each id tested costs a map lookup and two {@code long} comparisons, with no
+     * {@link BigDecimal} arithmetic per candidate. It takes the boxed id the caller already
+     * holds, so the lookup does not box it again.
+     */
+    public Predicate<Long> rangeFilter(BigDecimal minPrice, BigDecimal maxPrice) {
+        long minCents = toCents(minPrice, RoundingMode.CEILING);
+        long maxCents = toCents(maxPrice, RoundingMode.FLOOR);
+        return id -> {
+            Long cents = centsById.get(id);
+            return cents != null && cents >= minCents && cents <= maxCents;
+        };
+    }
+
+    public int size() {
+        return centsById.size();
+    }
+
+    private static List<Long> collect(NavigableSet<Long> view, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 256));
+        for (long key : view) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            ids.add(key & ID_MASK);
+        }
+        return ids;
+    }
+
+    private static long pack(long cents, long id) {
+        return (cents << ID_BITS) | (id & ID_MASK);
+    }
+
+    /**
+     * Whole cents, clamped to {@code [-CENTS_CEILING, CENTS_CEILING]} so that any bound a
+     * caller passes converts without overflow and packs into a valid key.
+     */
+    private static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        if (price.abs().compareTo(CEILING_PRICE) >= 0) {
+            return price.signum() * CENTS_CEILING;
+        }
+        return price.movePointRight(2).setScale(0, roundingMode).longValueExact();
+    }
+}
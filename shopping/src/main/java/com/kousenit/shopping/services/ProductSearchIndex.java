@@ -0,0 +1,244 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductName;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.repositories.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Embedded trigram index over product names.
+ * <p>
+ * Every lower-cased name is split into overlapping three-character grams and each gram maps
+ * to the ids whose names contain it. A query intersects the posting sets of its own grams,
+ * starting with the smallest, and confirms each candidate with a plain substring check, so
+ * results match the {@code LIKE %name%} semantics of the repository query without scanning
+ * the table. Queries shorter than three characters have no grams, and matching them here would
+ * mean checking every name, so the index does not serve them: {@link #covers(String)} is
+ * false for them and callers query the database instead.
+ * <p>
+ * Results are ranked exact match first, then name prefix, then word prefix, then any other
+ * substring; ties go to the shorter name, then alphabetical order. The index is built once the
+ * application is ready and kept current from {@link ProductChangedEvent}s.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${shopping.search.index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * True once the initial build has completed; until then callers should query the database.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * True if {@link #search(String, int, int)} can answer {@code query} from the index: the
+     * index is ready and the trimmed query is long enough to have grams.
+     */
+    public boolean covers(String query) {
+        return isReady() && normalize(query).length() >= GRAM;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        ready = false;
+        names.clear();
+        postings.clear();
+        List<ProductName> products = productRepository.findAllProductNames();
+        products.forEach(product -> index(product.id(), product.name()));
+        ready = true;
+        log.info("Search index built for {} products ({} grams)", names.size(), postings.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.changeType() == ProductChangedEvent.ChangeType.DELETED) {
+            remove(event.productId());
+        } else {
+            index(event.productId(), event.product().name());
+        }
+    }
+
+    public void index(Long id, String name) {
+        String normalized = normalize(name);
+        String previous = names.put(id, normalized);
+        if (previous != null) {
+            if (previous.equals(normalized)) {
+                return;
+            }
+            grams(previous).forEach(gram -> removePosting(gram, id));
+        }
+        grams(normalized).forEach(gram ->
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id));
+    }
+
+    public void remove(Long id) {
+        String previous = names.remove(id);
+        if (previous != null) {
+            grams(previous).forEach(gram -> removePosting(gram, id));
+        }
+    }
+
+    /**
+     * Returns the ids of matching products in rank order, skipping {@code offset} matches and
+     * returning at most {@code limit}. Only queries the index {@link #covers(String) covers}
+     * are accepted.
+     */
+    public List<Long> search(String query, int offset, int limit) {
+        return search(query, offset, limit, id -> true);
+    }
+
+    /**
+     * As {@link #search(String, int, int)}, but only ids accepted by {@code filter} count
+     * as matches, so offsets and limits apply after filtering.
+     */
+    public List<Long> search(String query, int offset, int limit, Predicate<Long> filter) {
+        String normalized = normalize(query);
+        if (normalized.length() < GRAM) {
+            throw new IllegalArgumentException("Queries shorter than " + GRAM + " characters are not indexed");
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        // Keep only the best offset + limit matches instead of sorting every candidate
+        int wanted = offset + limit;
+        Comparator<Match> ranking = Comparator.comparingInt(Match::rank)
+            .thenComparingInt(match -> match.name().length())
+            .thenComparing(Match::name)
+            .thenComparing(Match::id);
+        PriorityQueue<Match> best = new PriorityQueue<>(wanted + 1, ranking.reversed());
+
+        for (Long id : candidates(normalized)) {
+            String name = names.get(id);
+            if (name == null || !filter.test(id)) {
+                continue;
+            }
+            int position = name.indexOf(normalized);
+            if (position < 0) {
+                continue;
+            }
+            best.add(new Match(id, name, rank(name, normalized, position)));
+            if (best.size() > wanted) {
+                best.poll();
+            }
+        }
+
+        List<Match> ordered = new ArrayList<>(best);
+        ordered.sort(ranking);
+        return ordered.stream()
+            .skip(offset)
+            .map(Match::id)
+            .toList();
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private List<Long> candidates(String query) {
+        Set<String> queryGrams = grams(query);
+        List<Set<Long>> sets = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null || ids.isEmpty()) {
+                return List.of();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> result = new ArrayList<>();
+        Set<Long> smallest = sets.get(0);
+        List<Set<Long>> others = sets.subList(1, sets.size());
+        for (Long id : smallest) {
+            if (others.stream().allMatch(ids -> ids.contains(id))) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private void removePosting(String gram, Long id) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static int rank(String name, String query, int position) {
+        if (name.length() == query.length()) {
+            return 0;
+        }
+        if (position == 0) {
+            return 1;
+        }
+        if (startsWord(name, query)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static boolean startsWord(String name, String query) {
+        for (int i = name.indexOf(query); i > 0; i = name.indexOf(query, i + 1)) {
+            if (!Character.isLetterOrDigit(name.charAt(i - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> grams(String text) {
+        if (text.length() < GRAM) {
+            return Set.of();
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Match(Long id, String name, int rank) {}
+}
@@ -1,65 +1,208 @@
 package com.kousenit.shopping.services;
 
+import com.kousenit.shopping.config.CacheConfig;
+import com.kousenit.shopping.dto.CursorPage;
+import com.kousenit.shopping.dto.ProductCursor;
 import com.kousenit.shopping.dto.ProductRequest;
 import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.ReservationLine;
+import com.kousenit.shopping.dto.StockLevel;
 import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent.Reason;
 import com.kousenit.shopping.exceptions.InsufficientStockException;
 import com.kousenit.shopping.exceptions.ProductNotFoundException;
 import com.kousenit.shopping.exceptions.ProductValidationException;
 import com.kousenit.shopping.repositories.ProductRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 
+/**
+ * Product reads and writes.
+ * <p>
+ * Reads that return lists select straight into {@link ProductResponse} through the projection
+ * queries of {@link ProductRepository}, so no managed entities or dirty-checking snapshots are
+ * created for them. Single-product lookups and writes still go through the entity.
+ * <p>
+ * Writes rely on optimistic locking: a concurrent change to the same product fails the commit
+ * instead of being overwritten, and {@link RetryOnConflict} replays the whole transaction
+ * against the fresh row. The multi-line reservation keeps its ordered row locks, since replaying
+ * a wide transaction is the case optimistic retries handle worst.
+ * <p>
+ * Writes that may find the product in the {@link StockLedger} suspend it first and only then
+ * open their transaction through the {@link TransactionTemplate}: the ledger flush commits on
+ * a connection of its own, and taking it while already holding one could exhaust a bounded
+ * pool with callers that each wait for their second connection. The suspension lasts until
+ * the transaction has committed, so the ledger cannot reload the product from the old row.
+ */
 @Service
 @Transactional(readOnly = true)
+@Timed(value = "shopping.service", description = "Service calls, including database work")
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService {
     
+    private static final int MAX_RESULT_LIMIT = 1000;
+    
     private final ProductRepository productRepository;
+    private final StockLedger stockLedger;
+    private final ProductCacheEvictor productCacheEvictor;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final LowStockTracker lowStockTracker;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id")
     public ProductResponse getProductById(Long id) {
-        log.info("Fetching product with id: {}", id);
+        log.debug("Fetching product with id: {}", id);
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ProductNotFoundException(id));
         return ProductResponse.from(product);
     }
     
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#sku")
+    public ProductResponse getProductBySku(String sku) {
+        log.debug("Fetching product with SKU: {}", sku);
+        Product product = productRepository.findBySku(sku)
+            .orElseThrow(() -> new ProductNotFoundException("Product not found with SKU: " + sku));
+        return ProductResponse.from(product);
+    }
+    
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
-        log.info("Fetching all products with pagination: {}", pageable);
-        return productRepository.findAll(pageable)
-            .map(ProductResponse::from);
+        log.debug("Fetching all products with pagination: {}", pageable);
+        return productRepository.findAllResponses(pageable);
     }
     
-    public List<ProductResponse> searchProductsByName(String name) {
-        log.info("Searching products by name: {}", name);
-        return productRepository.findByNameContainingIgnoreCase(name)
-            .stream()
-            .map(ProductResponse::from)
-            .toList();
+    /**
+     * Keyset pagination ordered by (name, id). Each slice seeks past the cursor instead of
+     * skipping an offset, and no count query is issued.
+     */
+    public CursorPage<ProductResponse> scrollProducts(String cursor, int size) {
+        log.debug("Scrolling products after cursor {} with size {}", cursor, size);
+        if (size < 1 || size > 100) {
+            throw new IllegalArgumentException("Size must be between 1 and 100");
+        }
+        
+        // Fetch one extra row to find out whether another slice follows
+        Limit limit = Limit.of(size + 1);
+        List<ProductResponse> products;
+        if (cursor == null || cursor.isBlank()) {
+            products = productRepository.findFirstResponsesByName(limit);
+        } else {
+            ProductCursor after = ProductCursor.decode(cursor);
+            products = productRepository.findResponsePageAfter(after.name(), after.id(), limit);
+        }
+        
+        boolean hasNext = products.size() > size;
+        List<ProductResponse> slice = hasNext ? products.subList(0, size) : products;
+        String nextCursor = null;
+        if (hasNext) {
+            ProductResponse last = slice.get(slice.size() - 1);
+            nextCursor = new ProductCursor(last.name(), last.id()).encode();
+        }
+        return new CursorPage<>(
+            List.copyOf(slice),
+            slice.size(),
+            hasNext,
+            nextCursor);
     }
     
-    public List<ProductResponse> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        log.info("Fetching products in price range: {} - {}", minPrice, maxPrice);
+    /**
+     * Ranked, paginated name search on the trimmed name; the slice tells whether another page
+     * follows. Served from the in-memory {@link ProductSearchIndex} once it is built and the
+     * name has at least three characters, otherwise from the database.
+     */
+    public Slice<ProductResponse> searchProductsByName(String name, int page, int size) {
+        if (log.isDebugEnabled()) {
+            log.debug("Searching products by name: {} (page {}, size {})", name, page, size);
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            throw new IllegalArgumentException("Page must not be negative and size must be between 1 and 100");
+        }
+        String query = name.trim();
+        if (productSearchIndex.covers(query)) {
+            List<Long> ids = productSearchIndex.search(query, page * size, size + 1);
+            return slice(findAllInOrder(ids), PageRequest.of(page, size));
+        }
+        return productRepository.findResponsesByNameContaining(query, PageRequest.of(page, size));
+    }
+    
+    /**
+     * Products priced between the bounds, cheapest first, at most {@code limit} of them; the
+     * slice tells whether more matched. Served from the in-memory {@link ProductPriceIndex}
+     * once it is built.
+     */
+    public Slice<ProductResponse> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching up to {} products in price range: {} - {}", limit, minPrice, maxPrice);
+        }
         if (minPrice.compareTo(maxPrice) > 0) {
             throw new IllegalArgumentException("Min price cannot be greater than max price");
         }
-        return productRepository.findByPriceBetween(minPrice, maxPrice)
-            .stream()
-            .map(ProductResponse::from)
-            .toList();
+        validateLimit(limit);
+        if (productPriceIndex.isReady()) {
+            return slice(findAllInOrder(productPriceIndex.findIdsInRange(minPrice, maxPrice, limit + 1)), limit);
+        }
+        return slice(productRepository.findResponsesByPriceBetween(minPrice, maxPrice, Limit.of(limit + 1)), limit);
+    }
+    
+    /**
+     * Name search restricted to a price range. Uses both in-memory indexes when they are
+     * built and the search index covers the trimmed name, otherwise the combined repository query.
+     */
+    public Slice<ProductResponse> searchProducts(String name, BigDecimal minPrice, BigDecimal maxPrice,
+                                                 int page, int size) {
+        if (log.isDebugEnabled()) {
+            log.debug("Searching products by name: {} in price range {} - {} (page {}, size {})",
+                name, minPrice, maxPrice, page, size);
+        }
+        if (minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Min price cannot be greater than max price");
+        }
+        if (page < 0 || size < 1 || size > 100) {
+            throw new IllegalArgumentException("Page must not be negative and size must be between 1 and 100");
+        }
+        String query = name.trim();
+        if (productSearchIndex.covers(query) && productPriceIndex.isReady()) {
+            List<Long> ids = productSearchIndex.search(query, page * size, size + 1,
+                productPriceIndex.rangeFilter(minPrice, maxPrice));
+            return slice(findAllInOrder(ids), PageRequest.of(page, size));
+        }
+        return productRepository.findResponsesByNameContainingAndPriceBetween(
+            query, minPrice, maxPrice, PageRequest.of(page, size));
     }
     
     @Transactional
     public ProductResponse createProduct(ProductRequest request) {
-        log.info("Creating new product with SKU: {}", request.sku());
+        log.debug("Creating new product with SKU: {}", request.sku());
         
         validateProductRequest(request);
         
@@ -73,13 +216,25 @@ public class ProductService {
         
         Product savedProduct = productRepository.save(product);
         log.info("Product created successfully with id: {}", savedProduct.getId());
-        return ProductResponse.from(savedProduct);
+        ProductResponse response = ProductResponse.from(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.created(response, savedProduct.getVersion()));
+        return response;
     }
     
-    @Transactional
+    @RetryOnConflict
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, allEntries = true)
+    })
     public ProductResponse updateProduct(Long id, ProductRequest request) {
-        log.info("Updating product with id: {}", id);
+        log.debug("Updating product with id: {}", id);
         
+        return stockLedger.suspendDuring(id,
+            () -> transactionTemplate.execute(status -> applyUpdate(id, request)));
+    }
+    
+    private ProductResponse applyUpdate(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ProductNotFoundException(id));
         
@@ -100,23 +255,45 @@ public class ProductService {
         product.setContactEmail(request.contactEmail());
         
         Product updatedProduct = productRepository.save(product);
+        // Flushed here so the event carries the version this update is written with
+        productRepository.flush();
         log.info("Product updated successfully");
-        return ProductResponse.from(updatedProduct);
+        ProductResponse response = ProductResponse.from(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(response, updatedProduct.getVersion()));
+        return response;
     }
     
-    @Transactional
+    @RetryOnConflict
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, allEntries = true)
+    })
     public void deleteProduct(Long id) {
-        log.info("Deleting product with id: {}", id);
+        log.debug("Deleting product with id: {}", id);
+        stockLedger.suspendDuring(id, () -> {
+            transactionTemplate.executeWithoutResult(status -> applyDelete(id));
+            return null;
+        });
+    }
+    
+    private void applyDelete(Long id) {
         if (!productRepository.existsById(id)) {
             throw new ProductNotFoundException(id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         log.info("Product deleted successfully");
     }
     
+    @RetryOnConflict
     @Transactional
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#result.sku")
+    })
     public ProductResponse updateStock(Long id, Integer newQuantity) {
-        log.info("Updating stock for product {}: new quantity {}", id, newQuantity);
+        log.debug("Updating stock for product {}: new quantity {}", id, newQuantity);
         
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ProductNotFoundException(id));
@@ -125,17 +302,27 @@ public class ProductService {
             throw new IllegalArgumentException("Stock quantity cannot be negative");
         }
         
-        Integer oldQuantity = product.getQuantity();
+        int oldQuantity = product.getQuantity();
         product.setQuantity(newQuantity);
         Product updatedProduct = productRepository.save(product);
+        productRepository.flush();
         
-        log.info("Stock updated for product {}: {} -> {}", id, oldQuantity, newQuantity);
+        if (log.isDebugEnabled()) {
+            log.debug("Stock updated for product {}: {} -> {}", id, oldQuantity, newQuantity);
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(id, updatedProduct.getSku(), oldQuantity, newQuantity,
+            Reason.ADJUSTMENT, updatedProduct.getVersion()));
         return ProductResponse.from(updatedProduct);
     }
     
+    @RetryOnConflict
     @Transactional
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#result.sku")
+    })
     public ProductResponse reserveStock(Long id, Integer quantity) {
-        log.info("Reserving {} units of product {}", quantity, id);
+        log.debug("Reserving {} units of product {}", quantity, id);
         
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ProductNotFoundException(id));
@@ -146,15 +333,69 @@ public class ProductService {
         
         product.decrementStock(quantity);
         Product updatedProduct = productRepository.save(product);
+        productRepository.flush();
+        int remaining = updatedProduct.getQuantity();
         
-        log.info("Reserved {} units of product {}. Remaining stock: {}", 
-                quantity, id, updatedProduct.getQuantity());
-        return ProductResponse.from(updatedProduct);
+        if (log.isDebugEnabled()) {
+            log.debug("Reserved {} units of product {}. Remaining stock: {}", quantity, id, remaining);
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(id, updatedProduct.getSku(),
+            remaining + quantity, remaining, Reason.RESERVATION, updatedProduct.getVersion()));
+        return ProductResponse.from(updatedProduct, remaining);
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<ProductResponse> reserveStock(List<ReservationLine> lines) {
+        log.debug("Reserving stock for {} order lines", lines.size());
+        
+        // Merge duplicate lines and keep ids sorted so rows are always locked in the same order
+        Map<Long, Integer> requested = new TreeMap<>();
+        lines.forEach(line -> requested.merge(line.productId(), line.quantity(), Integer::sum));
+        return stockLedger.suspendDuring(requested.keySet(),
+            () -> transactionTemplate.execute(status -> applyReservations(requested)));
+    }
+    
+    private List<ProductResponse> applyReservations(Map<Long, Integer> requested) {
+        List<Product> products = productRepository.findAllByIdForUpdate(requested.keySet());
+        if (products.size() != requested.size()) {
+            Long missingId = requested.keySet().stream()
+                .filter(id -> products.stream().noneMatch(product -> product.getId().equals(id)))
+                .findFirst()
+                .orElseThrow();
+            throw new ProductNotFoundException(missingId);
+        }
+        
+        for (Product product : products) {
+            int quantity = requested.get(product.getId());
+            if (!product.hasStock(quantity)) {
+                throw new InsufficientStockException(product.getId(), quantity, product.getQuantity());
+            }
+            product.decrementStock(quantity);
+        }
+        
+        // One flush sends the updates as a JDBC batch (hibernate.jdbc.batch_size)
+        List<Product> updatedProducts = productRepository.saveAllAndFlush(products);
+        
+        log.debug("Reserved stock for {} products", updatedProducts.size());
+        updatedProducts.forEach(product -> {
+            productCacheEvictor.evict(product.getId(), product.getSku());
+            eventPublisher.publishEvent(new StockChangedEvent(product.getId(), product.getSku(),
+                product.getQuantity() + requested.get(product.getId()), product.getQuantity(),
+                Reason.RESERVATION, product.getVersion()));
+        });
+        return updatedProducts.stream()
+            .map(ProductResponse::from)
+            .toList();
     }
     
+    @RetryOnConflict
     @Transactional
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#result.sku")
+    })
     public ProductResponse addStock(Long id, Integer quantity) {
-        log.info("Adding {} units to product {}", quantity, id);
+        log.debug("Adding {} units to product {}", quantity, id);
         
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ProductNotFoundException(id));
@@ -165,29 +406,110 @@ public class ProductService {
         
         product.incrementStock(quantity);
         Product updatedProduct = productRepository.save(product);
+        productRepository.flush();
+        int available = updatedProduct.getQuantity();
         
-        log.info("Added {} units to product {}. New stock: {}", 
-                quantity, id, updatedProduct.getQuantity());
-        return ProductResponse.from(updatedProduct);
+        if (log.isDebugEnabled()) {
+            log.debug("Added {} units to product {}. New stock: {}", quantity, id, available);
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(id, updatedProduct.getSku(),
+            available - quantity, available, Reason.RESTOCK, updatedProduct.getVersion()));
+        return ProductResponse.from(updatedProduct, available);
     }
     
-    public List<ProductResponse> getLowStockProducts(Integer threshold) {
-        log.info("Fetching products with stock below {}", threshold);
-        return productRepository.findLowStockProducts(threshold)
-            .stream()
-            .map(ProductResponse::from)
-            .toList();
+    /**
+     * Products with stock below the threshold, lowest first, at most {@code limit} of them;
+     * the slice tells whether more matched.
+     */
+    public Slice<ProductResponse> getLowStockProducts(Integer threshold, int limit) {
+        log.debug("Fetching up to {} products with stock below {}", limit, threshold);
+        validateLimit(limit);
+        if (lowStockTracker.isReady()) {
+            return slice(findAllInOrder(lowStockTracker.findBelow(threshold, limit + 1).stream()
+                .map(StockLevel::id)
+                .toList()), limit);
+        }
+        return slice(productRepository.findLowStockResponses(threshold, Limit.of(limit + 1)), limit);
     }
     
-    public List<ProductResponse> getExpensiveProducts(BigDecimal minPrice) {
-        log.info("Fetching products with price above {}", minPrice);
-        return productRepository.findExpensiveProducts(minPrice)
-            .stream()
-            .map(ProductResponse::from)
+    /**
+     * Stock levels below the threshold, lowest first, at most {@code limit} of them; the slice
+     * tells whether more matched. Answered from the {@link LowStockTracker} without touching
+     * the database once it is built.
+     */
+    public Slice<StockLevel> getLowStockLevels(Integer threshold, int limit) {
+        log.debug("Fetching up to {} stock levels below {}", limit, threshold);
+        validateLimit(limit);
+        if (lowStockTracker.isReady()) {
+            return slice(lowStockTracker.findBelow(threshold, limit + 1), limit);
+        }
+        return slice(productRepository.findLowStockLevels(threshold, Limit.of(limit + 1)), limit);
+    }
+    
+    /**
+     * Products priced at or above {@code minPrice}, most expensive first, at most
+     * {@code limit} of them; the slice tells whether more matched.
+     */
+    public Slice<ProductResponse> getExpensiveProducts(BigDecimal minPrice, int limit) {
+        log.debug("Fetching up to {} products with price above {}", limit, minPrice);
+        validateLimit(limit);
+        if (productPriceIndex.isReady()) {
+            return slice(findAllInOrder(productPriceIndex.findIdsAtLeast(minPrice, limit + 1)), limit);
+        }
+        return slice(productRepository.findExpensiveResponses(minPrice, Limit.of(limit + 1)), limit);
+    }
+    
+    /**
+     * Resolves ids to responses in the given order, taking what it can from the product cache
+     * and loading the rest with a single projection query.
+     */
+    private List<ProductResponse> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS);
+        Map<Long, ProductResponse> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            ProductResponse cached = cache != null ? cache.get(id, ProductResponse.class) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            productRepository.findResponsesByIdIn(misses).forEach(response -> {
+                found.put(response.id(), response);
+                if (cache != null) {
+                    cache.putIfAbsent(response.id(), response);
+                }
+            });
+        }
+        return ids.stream()
+            .map(found::get)
+            .filter(Objects::nonNull)
             .toList();
     }
     
-    private void validateProductRequest(ProductRequest request) {
+    // Callers fetch one row more than the limit, so the extra row tells that more matched
+    private static <T> Slice<T> slice(List<T> rows, int limit) {
+        return slice(rows, PageRequest.of(0, limit));
+    }
+    
+    private static <T> Slice<T> slice(List<T> rows, Pageable pageable) {
+        int size = pageable.getPageSize();
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+    
+    private static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_RESULT_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_RESULT_LIMIT);
+        }
+    }
+    
+    static void validateProductRequest(ProductRequest request) {
         // Additional business validation beyond bean validation
         if (request.price() != null && request.price().scale() > 2) {
             throw new ProductValidationException("price", request.price(), 
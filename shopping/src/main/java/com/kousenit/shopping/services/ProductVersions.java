@@ -0,0 +1,71 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Validators for conditional GETs of products and product lists.
+ * <p>
+ * A product's ETag comes from its {@code updatedAt} and quantity, and its Last-Modified from
+ * {@code updatedAt} alone. Every write path sets {@code updatedAt}, bulk stock updates
+ * included; the quantity also tells apart responses the {@link StockLedger} builds from a
+ * snapshot whose timestamp has not moved yet. Validators of recently read products are kept
+ * with their payload in the {@link ProductJsonCache}. Lists share one catalog validator, a
+ * counter bumped after every committed product or stock change; it starts from the boot time
+ * so tags from a previous run never match. The {@link StockLedger} publishes its stock events
+ * before the change reaches the database, so it also bumps the counter once its write has
+ * committed; otherwise a list read in between would carry the new tag with the old rows.
+ */
+@Component
+public class ProductVersions {
+
+    private final String catalogPrefix = "c" + Long.toHexString(System.currentTimeMillis()) + "-";
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private volatile long catalogLastModified = System.currentTimeMillis();
+
+    public Validator catalog() {
+        return new Validator(catalogPrefix + catalogVersion.get(), catalogLastModified);
+    }
+
+    /**
+     * The validator of {@code product}, or {@code null} if it has no timestamp.
+     */
+    public static Validator of(ProductResponse product) {
+        LocalDateTime updatedAt = product.updatedAt();
+        if (updatedAt == null) {
+            return null;
+        }
+        long nanos = updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() * 1_000_000
+            + updatedAt.getNano() % 1_000_000;
+        return new Validator("p" + product.id() + "-" + Long.toHexString(nanos) + "-" + product.quantity(),
+            nanos / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        changed();
+    }
+
+    /**
+     * Moves the catalog validator on; call after the change has committed.
+     */
+    public void changed() {
+        catalogLastModified = System.currentTimeMillis();
+        catalogVersion.incrementAndGet();
+    }
+
+    public record Validator(String etag, long lastModified) {
+    }
+}
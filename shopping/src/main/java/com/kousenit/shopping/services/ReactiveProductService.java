@@ -0,0 +1,144 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductRequest;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.ReactiveProduct;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.exceptions.ProductValidationException;
+import com.kousenit.shopping.repositories.ReactiveProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking counterpart of {@link ProductService} for the reactive API.
+ * <p>
+ * Reads and writes go through R2DBC. Writes apply the same validation as the blocking service
+ * and keep the rest of the application consistent: they drop the product from the
+ * {@link StockLedger} and the read caches, and publish {@link ProductChangedEvent}s for the
+ * in-memory indexes. The product is suspended in the ledger for the whole write; suspending
+ * may write to the database over JDBC, so it runs on the bounded elastic scheduler.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveProductService {
+
+    private static final Sort BY_NAME = Sort.by("name", "id");
+
+    private final ReactiveProductRepository reactiveProductRepository;
+    private final StockLedger stockLedger;
+    private final ProductCacheEvictor productCacheEvictor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Mono<ProductResponse> getProductById(Long id) {
+        return reactiveProductRepository.findById(id)
+            .map(ProductResponse::from)
+            .switchIfEmpty(Mono.error(() -> new ProductNotFoundException(id)));
+    }
+
+    public Mono<ProductResponse> getProductBySku(String sku) {
+        return reactiveProductRepository.findBySku(sku)
+            .map(ProductResponse::from)
+            .switchIfEmpty(Mono.error(() -> new ProductNotFoundException("Product not found with SKU: " + sku)));
+    }
+
+    /**
+     * The whole catalog ordered by name. Rows are fetched as the subscriber requests them.
+     */
+    public Flux<ProductResponse> streamProducts() {
+        return reactiveProductRepository.findAll(BY_NAME)
+            .map(ProductResponse::from);
+    }
+
+    public Flux<ProductResponse> searchProductsByName(String name) {
+        return reactiveProductRepository.findByNameContainingIgnoreCase(name, BY_NAME)
+            .map(ProductResponse::from);
+    }
+
+    public Mono<ProductResponse> createProduct(ProductRequest request) {
+        return Mono.fromRunnable(() -> ProductService.validateProductRequest(request))
+            .then(Mono.defer(() -> {
+                log.info("Creating new product with SKU: {}", request.sku());
+                LocalDateTime now = LocalDateTime.now();
+                ReactiveProduct product = new ReactiveProduct();
+                apply(product, request);
+                product.setCreatedAt(now);
+                product.setUpdatedAt(now);
+                return reactiveProductRepository.save(product);
+            }))
+            .map(saved -> {
+                ProductResponse response = ProductResponse.from(saved);
+                eventPublisher.publishEvent(ProductChangedEvent.created(response, saved.getVersion()));
+                return response;
+            });
+    }
+
+    public Mono<ProductResponse> updateProduct(Long id, ProductRequest request) {
+        return withLedgerSuspended(id, reactiveProductRepository.findById(id)
+            .switchIfEmpty(Mono.error(() -> new ProductNotFoundException(id)))
+            .flatMap(product -> {
+                ProductService.validateProductRequest(request);
+                String previousSku = product.getSku();
+                Mono<Boolean> skuTaken = previousSku.equals(request.sku())
+                    ? Mono.just(false)
+                    : reactiveProductRepository.existsBySku(request.sku());
+                return skuTaken.flatMap(taken -> {
+                    if (taken) {
+                        return Mono.error(new ProductValidationException("sku", request.sku(),
+                            "Product with SKU " + request.sku() + " already exists"));
+                    }
+                    log.info("Updating product with id: {}", id);
+                    apply(product, request);
+                    product.setUpdatedAt(LocalDateTime.now());
+                    return reactiveProductRepository.save(product)
+                        .doOnNext(saved -> {
+                            productCacheEvictor.evict(id, previousSku);
+                            productCacheEvictor.evict(id, saved.getSku());
+                        });
+                });
+            })
+            .map(saved -> {
+                ProductResponse response = ProductResponse.from(saved);
+                eventPublisher.publishEvent(ProductChangedEvent.updated(response, saved.getVersion()));
+                return response;
+            }));
+    }
+
+    public Mono<Void> deleteProduct(Long id) {
+        return withLedgerSuspended(id, reactiveProductRepository.findById(id)
+            .switchIfEmpty(Mono.error(() -> new ProductNotFoundException(id)))
+            .flatMap(product -> reactiveProductRepository.delete(product)
+                .then(Mono.fromRunnable(() -> {
+                    log.info("Deleted product with id: {}", id);
+                    productCacheEvictor.evict(id, product.getSku());
+                    eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+                }))));
+    }
+
+    // The product stays suspended in the ledger until the write has completed
+    private <T> Mono<T> withLedgerSuspended(Long id, Mono<T> write) {
+        return Mono.using(() -> {
+                stockLedger.suspend(id);
+                return id;
+            }, suspended -> write, stockLedger::resume)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static void apply(ReactiveProduct product, ProductRequest request) {
+        product.setName(request.name());
+        product.setPrice(request.price());
+        product.setDescription(request.description());
+        product.setQuantity(request.quantity());
+        product.setSku(request.sku());
+        product.setContactEmail(request.contactEmail());
+    }
+}
@@ -0,0 +1,33 @@
+package com.kousenit.shopping.services;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs a write that lost an optimistic-lock race on {@code Product.version}.
+ * <p>
+ * The retry advice is ordered outside the transaction advice, so every attempt starts a fresh
+ * transaction and re-reads the row. Attempts back off exponentially with jitter; once they are
+ * used up the last {@link OptimisticLockingFailureException} propagates and is answered with a
+ * 409. Limits come from {@code shopping.retry.optimistic-lock.*}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(
+    retryFor = OptimisticLockingFailureException.class,
+    maxAttemptsExpression = "${shopping.retry.optimistic-lock.max-attempts:4}",
+    backoff = @Backoff(
+        delayExpression = "${shopping.retry.optimistic-lock.delay-ms:20}",
+        maxDelayExpression = "${shopping.retry.optimistic-lock.max-delay-ms:200}",
+        multiplierExpression = "${shopping.retry.optimistic-lock.multiplier:2}",
+        random = true))
+@interface RetryOnConflict {
+}
@@ -0,0 +1,320 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockContention;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent.Reason;
+import com.kousenit.shopping.exceptions.InsufficientStockException;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.repositories.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flat-combining front end for stock reservations and additions.
+ * <p>
+ * Callers for the same product enqueue their operation and race for that product's combiner
+ * flag. The winner drains the queue and applies every pending operation in arrival order
+ * inside one transaction: a single locked read, one {@code UPDATE} at commit. Each caller then
+ * gets the outcome of its own operation, so a reservation that does not fit fails on its own
+ * without failing the rest of the batch. Under no contention the batch is just the caller's
+ * own operation and the cost matches the plain entity path.
+ * <p>
+ * A combiner only works until its own operation is done, then wakes the caller at the head of
+ * the queue to take over. No single caller serves a product's load for longer than the batches
+ * ahead of its own operation, however steadily new operations arrive.
+ * <p>
+ * Once a product has produced a batch of more than one operation it counts as hot, and the
+ * next combiner waits a short window before draining so more operations share the update.
+ * Contention is reported per SKU through {@link #contention(int)} and Micrometer. Products that
+ * see no operations for {@code idle-evict-ms} lose their slot, and with it their contention
+ * figures, so the map only holds recently active products.
+ */
+@Component
+@Slf4j
+public class StockCombiner {
+
+    private static final int MAX_BATCH = 256;
+    // Fallback for a waiter whose wake-up went to another caller at the head of the queue
+    private static final long HANDOFF_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ProductRepository productRepository;
+    private final ProductCacheEvictor productCacheEvictor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate batchTransaction;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final long idleNanos;
+
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final DistributionSummary batchSizes;
+
+    public StockCombiner(ProductRepository productRepository,
+                         ProductCacheEvictor productCacheEvictor,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${shopping.stock.combining.enabled:false}") boolean enabled,
+                         @Value("${shopping.stock.combining.window-micros:500}") long windowMicros,
+                         @Value("${shopping.stock.combining.idle-evict-ms:60000}") long idleEvictMillis) {
+        this.productRepository = productRepository;
+        this.productCacheEvictor = productCacheEvictor;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictMillis);
+        this.batchSizes = DistributionSummary.builder("shopping.stock.combining.batch.size")
+            .description("Stock operations applied per combined database update")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ProductResponse reserve(Long id, int quantity) {
+        return submit(id, new Operation(-quantity));
+    }
+
+    public ProductResponse add(Long id, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to add must be positive");
+        }
+        return submit(id, new Operation(quantity));
+    }
+
+    /**
+     * The most contended products, by number of operations that shared an update with others.
+     */
+    public List<StockContention> contention(int limit) {
+        return slots.entrySet().stream()
+            .filter(entry -> entry.getValue().combinedOperations.sum() > 0)
+            .map(entry -> entry.getValue().snapshot(entry.getKey()))
+            .sorted(Comparator.comparingLong(StockContention::combinedOperations).reversed())
+            .limit(limit)
+            .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${shopping.stock.combining.idle-evict-ms:60000}")
+    public void evictIdleSlots() {
+        evictIdleSlots(System.nanoTime());
+    }
+
+    /**
+     * Drops the slots of products with no operation since {@code idle-evict-ms} before
+     * {@code nowNanos}, together with their per-SKU contention counters. A caller still holding
+     * an evicted slot can use it as before; at worst it runs a batch of its own next to the new
+     * slot's, both serialized by the row lock.
+     */
+    int evictIdleSlots(long nowNanos) {
+        int evicted = 0;
+        for (Map.Entry<Long, Slot> entry : slots.entrySet()) {
+            Slot slot = entry.getValue();
+            if (slot.isIdle(nowNanos - idleNanos) && slots.remove(entry.getKey(), slot)) {
+                if (slot.contended != null) {
+                    meterRegistry.remove(slot.contended);
+                }
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle stock combining slots", evicted);
+        }
+        return evicted;
+    }
+
+    int slotCount() {
+        return slots.size();
+    }
+
+    private ProductResponse submit(Long id, Operation operation) {
+        Slot slot = slots.computeIfAbsent(id, key -> new Slot());
+        slot.lastUsedNanos = System.nanoTime();
+        slot.queue.add(operation);
+        while (!operation.result.isDone()) {
+            if (slot.combining.compareAndSet(false, true)) {
+                try {
+                    combine(id, slot);
+                } finally {
+                    slot.combining.set(false);
+                }
+                // Another caller may have queued while the flag was held and given up on it
+                Operation head = slot.queue.peek();
+                if (head != null) {
+                    LockSupport.unpark(head.caller);
+                }
+            } else {
+                LockSupport.parkNanos(this, HANDOFF_WAIT_NANOS);
+            }
+        }
+        try {
+            return operation.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void combine(Long id, Slot slot) {
+        if (slot.hot && windowNanos > 0) {
+            LockSupport.parkNanos(windowNanos);
+        }
+        List<Operation> batch = new ArrayList<>();
+        Operation next;
+        while (batch.size() < MAX_BATCH && (next = slot.queue.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            batchTransaction.executeWithoutResult(status -> apply(id, batch, slot));
+            batch.forEach(Operation::publish);
+        } catch (RuntimeException e) {
+            batch.forEach(operation -> operation.fail(e));
+        }
+        record(slot, batch.size());
+    }
+
+    private void apply(Long id, List<Operation> batch, Slot slot) {
+        Product product = productRepository.findAllByIdForUpdate(List.of(id)).stream()
+            .findFirst()
+            .orElseThrow(() -> new ProductNotFoundException(id));
+        slot.sku = product.getSku();
+
+        List<Operation> applied = new ArrayList<>(batch.size());
+        for (Operation operation : batch) {
+            operation.before = product.getQuantity();
+            if (operation.delta < 0) {
+                int quantity = -operation.delta;
+                if (!product.hasStock(quantity)) {
+                    operation.failure = new InsufficientStockException(id, quantity, operation.before);
+                    continue;
+                }
+                product.decrementStock(quantity);
+            } else {
+                product.incrementStock(operation.delta);
+            }
+            operation.response = ProductResponse.from(product);
+            applied.add(operation);
+        }
+        if (applied.isEmpty()) {
+            return;
+        }
+        // The whole batch is a single UPDATE; flushed now so the events carry its version
+        productRepository.flush();
+        for (Operation operation : applied) {
+            eventPublisher.publishEvent(new StockChangedEvent(id, product.getSku(), operation.before,
+                operation.response.quantity(), operation.delta < 0 ? Reason.RESERVATION : Reason.RESTOCK,
+                product.getVersion()));
+        }
+        productCacheEvictor.evict(id, product.getSku());
+    }
+
+    private void record(Slot slot, int batchSize) {
+        batchSizes.record(batchSize);
+        slot.operations.add(batchSize);
+        slot.batches.increment();
+        slot.maxBatchSize.accumulateAndGet(batchSize, Math::max);
+        slot.hot = batchSize > 1;
+        if (batchSize > 1) {
+            slot.combinedOperations.add(batchSize);
+            slot.contended(meterRegistry).increment(batchSize);
+            log.debug("Combined {} stock operations for product {}", batchSize, slot.sku);
+        }
+    }
+
+    private static final class Operation {
+        private final int delta;
+        private final Thread caller = Thread.currentThread();
+        private final CompletableFuture<ProductResponse> result = new CompletableFuture<>();
+        // Written by the combiner inside the batch transaction, published after it commits
+        private int before;
+        private ProductResponse response;
+        private RuntimeException failure;
+
+        private Operation(int delta) {
+            this.delta = delta;
+        }
+
+        private void publish() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(response);
+            }
+            LockSupport.unpark(caller);
+        }
+
+        private void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+            LockSupport.unpark(caller);
+        }
+    }
+
+    private static final class Slot {
+        private final Queue<Operation> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean combining = new AtomicBoolean();
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder combinedOperations = new LongAdder();
+        private final AtomicInteger maxBatchSize = new AtomicInteger();
+        private volatile long lastUsedNanos = System.nanoTime();
+        // Only touched by the thread holding the combiner flag
+        private volatile boolean hot;
+        private volatile String sku;
+        private Counter contended;
+
+        // Registered on first contention only, which keeps the sku tag to hot products
+        private Counter contended(MeterRegistry meterRegistry) {
+            if (contended == null) {
+                contended = Counter.builder("shopping.stock.combining.contended.operations")
+                    .description("Stock operations that shared a combined update with others")
+                    .tag("sku", sku != null ? sku : "unknown")
+                    .register(meterRegistry);
+            }
+            return contended;
+        }
+
+        private boolean isIdle(long cutoffNanos) {
+            return lastUsedNanos - cutoffNanos < 0 && queue.isEmpty() && !combining.get();
+        }
+
+        private StockContention snapshot(Long id) {
+            return new StockContention(id, sku, operations.sum(), batches.sum(),
+                combinedOperations.sum(), maxBatchSize.get());
+        }
+    }
+}
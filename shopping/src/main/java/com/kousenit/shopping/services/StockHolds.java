@@ -0,0 +1,304 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockHoldResponse;
+import com.kousenit.shopping.dto.StockHoldResponse.Status;
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.entities.StockHold;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.exceptions.StockHoldNotFoundException;
+import com.kousenit.shopping.repositories.StockHoldRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservation holds: stock set aside for a limited time, then either kept or given back.
+ * <p>
+ * Placing a hold reserves the stock through {@link StockService}, so whichever reservation
+ * path is enabled serves it, records the hold in the {@code stock_holds} table and schedules
+ * its expiry on a {@link TimerWheel}. When reservations are plain database writes, the
+ * reservation and the row share one transaction. The ledger and the combiner commit
+ * reservations on their own, so with either enabled the row is written afterwards and the
+ * stock is given back if that write fails. Confirming a hold keeps the stock reserved; cancelling
+ * it, or letting it expire, adds the stock back. Confirm, cancel and expiry all start by
+ * deleting the hold's row, and only the one whose delete removes it acts, so stock is
+ * returned at most once even when several nodes know the hold. Expired holds are released
+ * one product at a time on a scheduled tick; nothing scans the products table.
+ * <p>
+ * The table is the record and the wheel only the trigger. Holds survive a restart: they are
+ * left alone on shutdown and every outstanding row is put back on the wheel once the
+ * application is ready, with overdue ones released on the first tick. A release that fails
+ * puts the row back and is retried from the next tick. The remaining gaps are a node dying
+ * between deleting a row and adding the stock back, or, with the ledger or combiner enabled,
+ * between reserving and writing the row; either leaves that stock reserved.
+ */
+@Component
+@Slf4j
+public class StockHolds {
+
+    private final StockService stockService;
+    private final StockHoldRepository stockHoldRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long defaultTtlSeconds;
+    private final long maxTtlSeconds;
+    private final long tickNanos;
+    private final TimerWheel<String> wheel;
+
+    private final Map<String, Hold> holds = new ConcurrentHashMap<>();
+    private final Counter expired;
+
+    public StockHolds(StockService stockService,
+                      StockHoldRepository stockHoldRepository,
+                      TransactionTemplate transactionTemplate,
+                      MeterRegistry meterRegistry,
+                      @Value("${shopping.stock.holds.default-ttl-seconds:900}") long defaultTtlSeconds,
+                      @Value("${shopping.stock.holds.max-ttl-seconds:86400}") long maxTtlSeconds,
+                      @Value("${shopping.stock.holds.tick-ms:1000}") long tickMillis,
+                      @Value("${shopping.stock.holds.wheel-size:1024}") int wheelSize) {
+        this.stockService = stockService;
+        this.stockHoldRepository = stockHoldRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.wheel = new TimerWheel<>(tickNanos, wheelSize, System.nanoTime());
+        this.expired = Counter.builder("shopping.stock.holds.expired")
+            .description("Stock holds released because they were neither confirmed nor cancelled in time")
+            .register(meterRegistry);
+        Gauge.builder("shopping.stock.holds.active", holds, Map::size)
+            .description("Stock holds on this node's timer wheel, waiting to be confirmed, cancelled or expired")
+            .register(meterRegistry);
+    }
+
+    public StockHoldResponse place(Long productId, int quantity, Integer ttlSeconds) {
+        long ttl = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (ttl < 1 || ttl > maxTtlSeconds) {
+            throw new IllegalArgumentException("Hold TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+        String holdId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttl);
+        Hold hold = stockService.reservesInCallerTransaction()
+            ? reserveAndStore(holdId, productId, quantity, expiresAt)
+            : reserveThenStore(holdId, productId, quantity, expiresAt);
+        schedule(hold, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttl));
+        if (log.isDebugEnabled()) {
+            log.debug("Placed hold {} on {} units of product {} for {}s", hold.id, quantity, productId, ttl);
+        }
+        return hold.toResponse(Status.HELD);
+    }
+
+    /**
+     * Settles the hold for good: its stock stays reserved and no longer expires.
+     */
+    public StockHoldResponse confirm(String holdId) {
+        Hold hold = claim(holdId);
+        log.debug("Confirmed hold {}", holdId);
+        return hold.toResponse(Status.CONFIRMED);
+    }
+
+    /**
+     * Gives the hold's stock back. If that fails the hold is cancelled all the same: it is
+     * answered as {@link Status#CANCEL_PENDING} and the stock is returned by the expiry path,
+     * which retries from the next tick on.
+     */
+    public StockHoldResponse cancel(String holdId) {
+        Hold hold = claim(holdId);
+        try {
+            release(hold);
+        } catch (RuntimeException e) {
+            log.warn("Could not release cancelled hold {}, retrying next tick: {}", holdId, e.getMessage());
+            retry(hold, System.nanoTime());
+            return hold.toResponse(Status.CANCEL_PENDING);
+        }
+        log.debug("Cancelled hold {}", holdId);
+        return hold.toResponse(Status.CANCELLED);
+    }
+
+    /**
+     * Puts every stored hold this node has not scheduled on the wheel, at its remaining TTL.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        LocalDateTime now = LocalDateTime.now();
+        long nowNanos = System.nanoTime();
+        int restored = 0;
+        for (StockHold row : stockHoldRepository.findAll()) {
+            if (holds.containsKey(row.getId())) {
+                continue;
+            }
+            Hold hold = Hold.from(row);
+            long remaining = Math.max(0, Duration.between(now, row.getExpiresAt()).toNanos());
+            schedule(hold, nowNanos + remaining);
+            restored++;
+        }
+        if (restored > 0) {
+            log.info("Restored {} outstanding stock holds", restored);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shopping.stock.holds.tick-ms:1000}")
+    public void expireHolds() {
+        expireHolds(System.nanoTime());
+    }
+
+    int expireHolds(long nowNanos) {
+        List<String> due = wheel.advance(nowNanos);
+        int released = 0;
+        for (String holdId : due) {
+            Hold hold = holds.remove(holdId);
+            if (hold == null) {
+                continue;
+            }
+            try {
+                // A hold whose row could not be put back after a failed release is already ours
+                if (hold.stored && stockHoldRepository.deleteHold(holdId) == 0) {
+                    continue;
+                }
+                hold.stored = false;
+                release(hold);
+                expired.increment();
+                released++;
+            } catch (RuntimeException e) {
+                log.warn("Could not release expired hold {}, retrying next tick: {}", holdId, e.getMessage());
+                retry(hold, nowNanos);
+            }
+        }
+        if (released > 0) {
+            log.debug("Released {} expired stock holds", released);
+        }
+        return released;
+    }
+
+    public int active() {
+        return holds.size();
+    }
+
+    // The row commits with the reservation or not at all
+    private Hold reserveAndStore(String holdId, Long productId, int quantity, LocalDateTime expiresAt) {
+        return transactionTemplate.execute(status -> {
+            StockLevel level = stockService.reserveStockAtomically(productId, quantity);
+            Hold hold = new Hold(holdId, productId, level.sku(), quantity, expiresAt);
+            stockHoldRepository.save(hold.toEntity());
+            return hold;
+        });
+    }
+
+    // The reservation has committed on its own, so a failed row write is compensated
+    private Hold reserveThenStore(String holdId, Long productId, int quantity, LocalDateTime expiresAt) {
+        ProductResponse product = stockService.reserveStock(productId, quantity);
+        Hold hold = new Hold(holdId, productId, product.sku(), quantity, expiresAt);
+        try {
+            stockHoldRepository.save(hold.toEntity());
+        } catch (RuntimeException e) {
+            // Without its row nothing would ever give the stock back
+            releaseQuietly(hold);
+            throw e;
+        }
+        return hold;
+    }
+
+    private void schedule(Hold hold, long deadlineNanos) {
+        // Registered before it is scheduled, so the expiry always finds it
+        holds.put(hold.id, hold);
+        hold.timeout = wheel.schedule(hold.id, deadlineNanos);
+    }
+
+    /**
+     * Deletes the hold's row, so no other request or node can settle it, and takes it off
+     * this node's wheel.
+     */
+    private Hold claim(String holdId) {
+        StockHold row = stockHoldRepository.findById(holdId)
+            .orElseThrow(() -> new StockHoldNotFoundException(holdId));
+        if (stockHoldRepository.deleteHold(holdId) == 0) {
+            throw new StockHoldNotFoundException(holdId);
+        }
+        Hold local = holds.remove(holdId);
+        if (local != null && local.timeout != null) {
+            local.timeout.cancel();
+        }
+        Hold hold = Hold.from(row);
+        hold.stored = false;
+        return hold;
+    }
+
+    /**
+     * Hands a claimed hold whose release failed back to the expiry path: its row is put back,
+     * so a restart still finds it, and it is due again on the next tick.
+     */
+    private void retry(Hold hold, long nowNanos) {
+        try {
+            stockHoldRepository.save(hold.toEntity());
+            hold.stored = true;
+        } catch (RuntimeException e) {
+            log.error("Could not store hold {} for retry; it is retried in memory only", hold.id, e);
+            hold.stored = false;
+        }
+        schedule(hold, nowNanos + tickNanos);
+    }
+
+    private void releaseQuietly(Hold hold) {
+        try {
+            release(hold);
+        } catch (RuntimeException e) {
+            log.error("Could not release hold {}; {} units of product {} stay reserved",
+                hold.id, hold.quantity, hold.productId, e);
+        }
+    }
+
+    private void release(Hold hold) {
+        try {
+            stockService.addStock(hold.productId, hold.quantity);
+        } catch (ProductNotFoundException e) {
+            log.debug("Product {} of hold {} no longer exists, nothing to release", hold.productId, hold.id);
+        }
+    }
+
+    private static final class Hold {
+        private final String id;
+        private final Long productId;
+        private final String sku;
+        private final int quantity;
+        private final LocalDateTime expiresAt;
+        // Replaced when a failed release is rescheduled
+        private volatile TimerWheel.Timeout<String> timeout;
+        // Whether its row is in stock_holds; cleared once claimed
+        private volatile boolean stored = true;
+
+        private Hold(String id, Long productId, String sku, int quantity, LocalDateTime expiresAt) {
+            this.id = id;
+            this.productId = productId;
+            this.sku = sku;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+
+        private static Hold from(StockHold row) {
+            return new Hold(row.getId(), row.getProductId(), row.getSku(), row.getQuantity(), row.getExpiresAt());
+        }
+
+        private StockHold toEntity() {
+            return new StockHold(id, productId, sku, quantity, expiresAt);
+        }
+
+        private StockHoldResponse toResponse(Status status) {
+            return new StockHoldResponse(id, productId, sku, quantity, expiresAt, status);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.dto.StockMovementResponse;
+import com.kousenit.shopping.entities.StockMovement.Reason;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.repositories.StockMovementRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only journal of stock movements.
+ * <p>
+ * Every committed {@link StockChangedEvent} and {@link ProductChangedEvent} becomes one entry in
+ * a bounded in-memory buffer, so the operation that caused it never waits for an insert. A
+ * scheduled flush drains the buffer into the {@code stock_movements} table with JDBC batch
+ * inserts. A batch that fails to write is kept and retried on the next flush. When the buffer
+ * is full the appending thread runs a flush itself, which slows writers down instead of losing
+ * entries; only if that cannot free space either, because the database is unavailable, is the
+ * entry dropped and counted in {@code shopping.stock.journal.dropped}.
+ * <p>
+ * {@link #replay()} rebuilds quantities from the journal alone: creates and full updates set
+ * the quantity, stock operations add their delta, and deletes remove the product. Movements
+ * are replayed in the order of the product version they were written with, not in journal
+ * order: the journal appends after commit, and two commits on one product can reach it in
+ * either order. Within one version, which only the stock ledger and combined batches share,
+ * a create or update comes before the deltas that followed it.
+ * <p>
+ * Reads never flush. {@link #findMovements} and {@link #replay()} see what the last flush
+ * wrote, at most {@code flush-interval-ms} behind, so a read request does not turn into a
+ * batch insert.
+ */
+@Component
+@Slf4j
+public class StockJournal {
+
+    private static final int APPEND_ATTEMPTS = 3;
+
+    private static final String INSERT_SQL = "INSERT INTO stock_movements " +
+        "(product_id, product_version, sku, delta, quantity, reason, occurred_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String REPLAY_SQL =
+        "SELECT product_id, sku, delta, quantity, reason FROM stock_movements";
+
+    private static final String REPLAY_ORDER =
+        " ORDER BY product_id, product_version, CASE WHEN reason IN ('CREATED', 'UPDATED') THEN 0 ELSE 1 END, id";
+
+    // Nothing follows a delete, whatever version a late movement of the product carries
+    private static final long DELETED_VERSION = Long.MAX_VALUE;
+
+    private final StockMovementRepository stockMovementRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final BlockingQueue<Entry> buffer;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Drained but not yet written; guarded by flushLock
+    private final List<Entry> unwritten = new ArrayList<>();
+    private final Counter dropped;
+
+    public StockJournal(StockMovementRepository stockMovementRepository,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${shopping.stock.journal.enabled:false}") boolean enabled,
+                        @Value("${shopping.stock.journal.buffer-size:65536}") int bufferSize,
+                        @Value("${shopping.stock.journal.batch-size:500}") int batchSize) {
+        this.stockMovementRepository = stockMovementRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        // Appends can flush from after-commit callbacks, where the caller's transaction is finished
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.dropped = Counter.builder("shopping.stock.journal.dropped")
+            .description("Stock movements lost because the journal buffer stayed full")
+            .register(meterRegistry);
+        Gauge.builder("shopping.stock.journal.buffered", buffer, BlockingQueue::size)
+            .description("Stock movements waiting to be written to the journal")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        append(new Entry(event.productId(), event.version(), event.sku(), event.delta(), event.quantity(),
+            Reason.valueOf(event.reason().name()), LocalDateTime.now()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        switch (event.changeType()) {
+            case CREATED -> append(new Entry(event.productId(), event.version(), event.product().sku(),
+                event.product().quantity(), event.product().quantity(), Reason.CREATED, now));
+            // A full update does not report the previous quantity, so it resets instead of adding
+            case UPDATED -> append(new Entry(event.productId(), event.version(), event.product().sku(),
+                0, event.product().quantity(), Reason.UPDATED, now));
+            case DELETED -> append(new Entry(event.productId(), DELETED_VERSION, null, 0, 0, Reason.DELETED, now));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shopping.stock.journal.flush-interval-ms:100}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            while (!unwritten.isEmpty() || buffer.drainTo(unwritten, batchSize) > 0) {
+                writeTransaction.executeWithoutResult(status -> write(unwritten));
+                unwritten.clear();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Stock journal flush failed, keeping {} movements for the next attempt: {}",
+                unwritten.size(), e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public List<StockMovementResponse> findMovements(Long productId, int limit) {
+        return stockMovementRepository.findByProductIdOrderByProductVersionDescIdDesc(productId, Limit.of(limit))
+            .stream()
+            .map(StockMovementResponse::from)
+            .toList();
+    }
+
+    /**
+     * Quantities of every product as rebuilt from the journal, ordered by product id.
+     */
+    public List<StockLevel> replay() {
+        return List.copyOf(fold(REPLAY_SQL + REPLAY_ORDER).values());
+    }
+
+    public Optional<StockLevel> replay(Long productId) {
+        return Optional.ofNullable(
+            fold(REPLAY_SQL + " WHERE product_id = ?" + REPLAY_ORDER, productId).get(productId));
+    }
+
+    public int buffered() {
+        return buffer.size();
+    }
+
+    private void append(Entry entry) {
+        for (int attempt = 1; !buffer.offer(entry); attempt++) {
+            if (attempt == APPEND_ATTEMPTS) {
+                dropped.increment();
+                log.error("Stock journal buffer full, dropped {} movement of product {}",
+                    entry.reason(), entry.productId());
+                return;
+            }
+            flush();
+        }
+    }
+
+    private void write(List<Entry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Entry entry = entries.get(i);
+                ps.setLong(1, entry.productId());
+                ps.setLong(2, entry.version());
+                ps.setString(3, entry.sku());
+                ps.setInt(4, entry.delta());
+                ps.setInt(5, entry.quantity());
+                ps.setString(6, entry.reason().name());
+                ps.setTimestamp(7, Timestamp.valueOf(entry.occurredAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    // Rows are streamed through the callback, never materialized as a list
+    private Map<Long, StockLevel> fold(String sql, Object... args) {
+        Map<Long, StockLevel> levels = new TreeMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            long productId = rs.getLong("product_id");
+            String sku = rs.getString("sku");
+            int delta = rs.getInt("delta");
+            int quantity = rs.getInt("quantity");
+            Reason reason = Reason.valueOf(rs.getString("reason"));
+            if (reason == Reason.DELETED) {
+                levels.remove(productId);
+            } else if (reason.isAbsolute()) {
+                levels.put(productId, new StockLevel(productId, sku, quantity));
+            } else {
+                // Products that predate the journal start from the quantity after their first movement
+                levels.merge(productId, new StockLevel(productId, sku, quantity),
+                    (current, next) -> new StockLevel(productId, sku, current.quantity() + delta));
+            }
+        }, args);
+        return levels;
+    }
+
+    private record Entry(Long productId, long version, String sku, int delta, int quantity, Reason reason,
+                         LocalDateTime occurredAt) {
+    }
+}
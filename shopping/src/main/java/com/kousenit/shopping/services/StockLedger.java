@@ -0,0 +1,341 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent.Reason;
+import com.kousenit.shopping.exceptions.InsufficientStockException;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Optional in-memory stock ledger for hot products.
+ * <p>
+ * Each product gets an atomic counter that is seeded from the database on first use.
+ * Reservations, additions and absolute updates are applied with a CAS loop on that
+ * counter, so they never touch the database on the request path. A scheduled task
+ * flushes the net delta of every counter back to {@code products.quantity} through the
+ * {@link ProductRepository#decrementStock}/{@link ProductRepository#incrementStock}
+ * queries in a single transaction.
+ * <p>
+ * The ledger assumes it is the only writer of stock for the products it holds, so any
+ * other write path must run inside {@link #suspendDuring(Long, Supplier)}, or between
+ * {@link #suspend(Long)} and {@link #resume(Long)}. Suspending writes the pending delta and
+ * keeps ledger operations on the product waiting until the write has committed, so they
+ * reload the product from the written row instead of re-seeding from the one before it.
+ * It is a single-node structure: do not enable it when several instances share the same
+ * database.
+ */
+@Component
+@Slf4j
+public class StockLedger {
+
+    private static final int RETIRED = Integer.MIN_VALUE;
+    // Suspensions last as long as a database write, so waiters park instead of spinning
+    private static final long SUSPENDED_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final ProductRepository productRepository;
+    private final ProductCacheEvictor productCacheEvictor;
+    private final ProductVersions productVersions;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate flushTransaction;
+    private final boolean enabled;
+
+    private final Map<Long, LedgerEntry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Bumped by every suspend() so a load that raced one is discarded
+    private final AtomicLong suspendCount = new AtomicLong();
+
+    public StockLedger(ProductRepository productRepository,
+                       ProductCacheEvictor productCacheEvictor,
+                       ProductVersions productVersions,
+                       ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${shopping.stock.ledger.enabled:false}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.productCacheEvictor = productCacheEvictor;
+        this.productVersions = productVersions;
+        this.eventPublisher = eventPublisher;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ProductResponse reserve(Long id, int quantity) {
+        while (true) {
+            LedgerEntry entry = entryFor(id);
+            int current = entry.available.get();
+            if (current == RETIRED) {
+                LockSupport.parkNanos(SUSPENDED_WAIT_NANOS);
+                continue;
+            }
+            if (current < quantity) {
+                throw new InsufficientStockException(id, quantity, current);
+            }
+            if (entry.available.compareAndSet(current, current - quantity)) {
+                return changed(entry, current, current - quantity, Reason.RESERVATION);
+            }
+        }
+    }
+
+    public ProductResponse add(Long id, int quantity) {
+        while (true) {
+            LedgerEntry entry = entryFor(id);
+            int current = entry.available.get();
+            if (current == RETIRED) {
+                LockSupport.parkNanos(SUSPENDED_WAIT_NANOS);
+                continue;
+            }
+            if (entry.available.compareAndSet(current, Math.addExact(current, quantity))) {
+                return changed(entry, current, current + quantity, Reason.RESTOCK);
+            }
+        }
+    }
+
+    public ProductResponse set(Long id, int quantity) {
+        while (true) {
+            LedgerEntry entry = entryFor(id);
+            int current = entry.available.get();
+            if (current == RETIRED) {
+                LockSupport.parkNanos(SUSPENDED_WAIT_NANOS);
+                continue;
+            }
+            if (entry.available.compareAndSet(current, quantity)) {
+                return changed(entry, current, quantity, Reason.ADJUSTMENT);
+            }
+        }
+    }
+
+    /**
+     * Writes any pending delta for the product and drops it from the ledger, so the
+     * next ledger operation reloads it from the database.
+     */
+    public void evict(Long id) {
+        suspend(id);
+        resume(id);
+    }
+
+    /**
+     * Runs {@code write}, a database write that bypasses the ledger, with the product
+     * suspended; see {@link #suspend(Long)}. {@code write} must commit before it returns.
+     */
+    public <T> T suspendDuring(Long id, Supplier<T> write) {
+        suspend(id);
+        try {
+            return write.get();
+        } finally {
+            resume(id);
+        }
+    }
+
+    /**
+     * Same as {@link #suspendDuring(Long, Supplier)} for several products, suspended in the
+     * order given.
+     */
+    public <T> T suspendDuring(Collection<Long> ids, Supplier<T> write) {
+        List<Long> suspended = new ArrayList<>(ids.size());
+        try {
+            for (Long id : ids) {
+                suspend(id);
+                suspended.add(id);
+            }
+            return write.get();
+        } finally {
+            suspended.forEach(this::resume);
+        }
+    }
+
+    /**
+     * Writes any pending delta for the product and makes ledger operations on it wait until
+     * the matching {@link #resume(Long)}, after which it is reloaded from the database. A
+     * product the ledger does not hold yet is suspended too, so nothing seeds it from a row
+     * that is about to change. Suspensions nest. No-op when the ledger is disabled.
+     */
+    public void suspend(Long id) {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            suspendCount.incrementAndGet();
+            LedgerEntry entry = entries.computeIfAbsent(id, key -> new LedgerEntry());
+            int last = entry.available.getAndSet(RETIRED);
+            if (last != RETIRED) {
+                int delta = last - entry.flushed;
+                try {
+                    if (delta != 0) {
+                        flushTransaction.executeWithoutResult(status -> applyDelta(id, delta));
+                        productCacheEvictor.evict(id, entry.snapshot.getSku());
+                        productVersions.changed();
+                    }
+                } catch (RuntimeException e) {
+                    entry.available.set(last);
+                    throw e;
+                }
+            }
+            entry.suspensions++;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Ends a {@link #suspend(Long)}; the last one drops the product from the ledger.
+     */
+    public void resume(Long id) {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            LedgerEntry entry = entries.get(id);
+            if (entry != null && entry.suspensions > 0 && --entry.suspensions == 0) {
+                entries.remove(id, entry);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shopping.stock.ledger.flush-interval-ms:200}")
+    public void flush() {
+        flushPending();
+    }
+
+    /**
+     * Writes every pending delta now. Returns false if the write failed, in which case the
+     * deltas stay pending and the database is behind the ledger.
+     */
+    public boolean flushPending() {
+        if (entries.isEmpty()) {
+            return true;
+        }
+        flushLock.lock();
+        try {
+            List<PendingDelta> pending = new ArrayList<>();
+            entries.forEach((id, entry) -> {
+                int observed = entry.available.get();
+                if (observed != RETIRED && observed != entry.flushed) {
+                    pending.add(new PendingDelta(id, entry, observed, observed - entry.flushed));
+                }
+            });
+            if (pending.isEmpty()) {
+                return true;
+            }
+            flushTransaction.executeWithoutResult(status ->
+                pending.forEach(delta -> applyDelta(delta.id(), delta.delta())));
+            pending.forEach(delta -> {
+                delta.entry().flushed = delta.observed();
+                productCacheEvictor.evict(delta.id(), delta.entry().snapshot.getSku());
+            });
+            productVersions.changed();
+            log.debug("Flushed stock deltas for {} products", pending.size());
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to flush stock ledger; deltas will be retried", e);
+            return false;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private LedgerEntry entryFor(Long id) {
+        while (true) {
+            LedgerEntry entry = entries.get(id);
+            if (entry != null) {
+                return entry;
+            }
+            long seen = suspendCount.get();
+            Product product = productRepository.findById(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+            // Published retired and opened only if no suspension started while the row was read
+            LedgerEntry loaded = new LedgerEntry(product);
+            LedgerEntry existing = entries.putIfAbsent(id, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            flushLock.lock();
+            try {
+                if (loaded.suspensions > 0) {
+                    return loaded;
+                }
+                if (suspendCount.get() == seen) {
+                    loaded.available.set(product.getQuantity());
+                    return loaded;
+                }
+                entries.remove(id, loaded);
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private ProductResponse changed(LedgerEntry entry, int previousQuantity, int quantity, Reason reason) {
+        eventPublisher.publishEvent(new StockChangedEvent(entry.snapshot.getId(), entry.snapshot.getSku(),
+            previousQuantity, quantity, reason, entry.snapshot.getVersion()));
+        return ProductResponse.from(entry.snapshot, quantity);
+    }
+
+    private void applyDelta(Long id, int delta) {
+        LocalDateTime now = LocalDateTime.now();
+        if (delta < 0) {
+            productRepository.decrementStock(id, -delta, now);
+        } else {
+            productRepository.incrementStock(id, delta, now);
+        }
+    }
+
+    private static final class LedgerEntry {
+        private final Product snapshot;
+        private final AtomicInteger available;
+        // Quantity last written to the database; guarded by flushLock
+        private int flushed;
+        // Outstanding suspend() calls; guarded by flushLock
+        private int suspensions;
+
+        private LedgerEntry(Product snapshot) {
+            this.snapshot = snapshot;
+            this.available = new AtomicInteger(RETIRED);
+            this.flushed = snapshot.getQuantity();
+        }
+
+        // Placeholder for a product suspended before the ledger loaded it; never read
+        private LedgerEntry() {
+            this.snapshot = null;
+            this.available = new AtomicInteger(RETIRED);
+        }
+    }
+
+    private record PendingDelta(Long id, LedgerEntry entry, int observed, int delta) {}
+}
@@ -0,0 +1,162 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.config.CacheConfig;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockContention;
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.dto.StockMovementResponse;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.exceptions.InsufficientStockException;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.repositories.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Entry point for stock mutations.
+ * <p>
+ * Not transactional at the class level: when the {@link StockLedger} is enabled, requests
+ * are answered from memory without borrowing a database connection. Otherwise reservations
+ * and additions go through the {@link StockCombiner} when it is enabled, and everything else
+ * is delegated to the transactional, entity-based methods of {@link ProductService}. Methods
+ * that talk to the database directly declare their own transaction. Movement history and
+ * replays are read from the {@link StockJournal}. Time-limited holds are layered on top of
+ * these methods by {@link StockHolds}.
+ */
+@Service
+@Timed(value = "shopping.service", description = "Service calls, including database work")
+@RequiredArgsConstructor
+@Slf4j
+public class StockService {
+
+    private final ProductService productService;
+    private final StockLedger stockLedger;
+    private final StockCombiner stockCombiner;
+    private final StockJournal stockJournal;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#result.sku")
+    })
+    public ProductResponse reserveStock(Long id, Integer quantity) {
+        if (stockLedger.isEnabled()) {
+            log.debug("Reserving {} units of product {} through the stock ledger", quantity, id);
+            return stockLedger.reserve(id, quantity);
+        }
+        if (stockCombiner.isEnabled()) {
+            return stockCombiner.reserve(id, quantity);
+        }
+        return productService.reserveStock(id, quantity);
+    }
+
+    /**
+     * True when neither the ledger nor the combiner is enabled. Reservations are then plain
+     * database writes, and {@link #reserveStockAtomically} joins a transaction the caller has
+     * open, committing or rolling back with it.
+     */
+    public boolean reservesInCallerTransaction() {
+        return !stockLedger.isEnabled() && !stockCombiner.isEnabled();
+    }
+    
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#result.sku")
+    })
+    public ProductResponse addStock(Long id, Integer quantity) {
+        if (stockLedger.isEnabled()) {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity to add must be positive");
+            }
+            log.debug("Adding {} units to product {} through the stock ledger", quantity, id);
+            return stockLedger.add(id, quantity);
+        }
+        if (stockCombiner.isEnabled()) {
+            return stockCombiner.add(id, quantity);
+        }
+        return productService.addStock(id, quantity);
+    }
+
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#result.sku")
+    })
+    public ProductResponse updateStock(Long id, Integer newQuantity) {
+        if (stockLedger.isEnabled()) {
+            if (newQuantity < 0) {
+                throw new IllegalArgumentException("Stock quantity cannot be negative");
+            }
+            log.debug("Setting stock of product {} to {} through the stock ledger", id, newQuantity);
+            return stockLedger.set(id, newQuantity);
+        }
+        return productService.updateStock(id, newQuantity);
+    }
+    
+    /**
+     * Reserves stock with a single conditional {@code UPDATE} instead of loading the entity.
+     * The affected-row count decides success, so there is no window between the stock check
+     * and the write for concurrent reservers to slip through. Any ledger delta is flushed
+     * before the transaction opens, so a caller never holds two connections at once, and the
+     * ledger leaves the product alone until the transaction has committed.
+     */
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.PRODUCTS_BY_SKU, key = "#result.sku")
+    })
+    public StockLevel reserveStockAtomically(Long id, Integer quantity) {
+        log.debug("Atomically reserving {} units of product {}", quantity, id);
+        return stockLedger.suspendDuring(id,
+            () -> transactionTemplate.execute(status -> decrementIfAvailable(id, quantity)));
+    }
+    
+    private StockLevel decrementIfAvailable(Long id, Integer quantity) {
+        int updated = productRepository.decrementStockIfAvailable(id, quantity, LocalDateTime.now());
+        StockLevel stockLevel = productRepository.findStockLevelById(id)
+            .orElseThrow(() -> new ProductNotFoundException(id));
+        if (updated == 0) {
+            throw new InsufficientStockException(id, quantity, stockLevel.quantity());
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(id, stockLevel.sku(),
+            stockLevel.quantity() + quantity, stockLevel.quantity(), StockChangedEvent.Reason.RESERVATION,
+            stockLevel.version()));
+        return stockLevel;
+    }
+    
+    public List<StockContention> getStockContention(int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("Limit must be between 1 and 1000");
+        }
+        return stockCombiner.contention(limit);
+    }
+    
+    public List<StockMovementResponse> getStockMovements(Long id, int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("Limit must be between 1 and 1000");
+        }
+        return stockJournal.findMovements(id, limit);
+    }
+    
+    /**
+     * Stock levels of every journaled product, rebuilt from the stock journal alone, as of the
+     * journal's last flush.
+     */
+    public List<StockLevel> replayStock() {
+        return stockJournal.replay();
+    }
+    
+    public StockLevel replayStock(Long id) {
+        return stockJournal.replay(id)
+            .orElseThrow(() -> new ProductNotFoundException("No stock movements recorded for product " + id));
+    }
+}
@@ -0,0 +1,186 @@
+package com.kousenit.shopping.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timer wheel for large numbers of coarse timeouts.
+ * <p>
+ * Time is cut into ticks of a fixed length, and each timeout sits in the bucket of the tick
+ * it expires on, modulo the wheel size. Scheduling and cancelling are O(1) and never block:
+ * a new timeout is handed over through a queue, and a cancelled one is only marked and queued
+ * for unlinking. {@link #advance(long)} does the bucket work, one caller at a time: it files
+ * queued timeouts, unlinks cancelled ones and collects the payloads of every bucket the clock
+ * has passed. A timeout more than one turn away is skipped when its bucket comes round early,
+ * at the cost of one comparison per turn. Timeouts fire up to one tick late, never early.
+ */
+final class TimerWheel<T> {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final int mask;
+    private final Bucket<T>[] buckets;
+
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    // Next tick whose bucket has not been expired; guarded by advanceLock
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long tickNanos, int wheelSize, long startNanos) {
+        if (tickNanos <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Tick must be positive and wheel size a power of two");
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.mask = wheelSize - 1;
+        this.buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket<>();
+        }
+    }
+
+    /**
+     * Schedules {@code payload} to be returned by the first {@link #advance(long)} at or
+     * after {@code deadlineNanos}, on the same clock as {@code startNanos}.
+     */
+    Timeout<T> schedule(T payload, long deadlineNanos) {
+        long offset = deadlineNanos - startNanos;
+        // Rounded up, so a timeout never lands in a bucket that expires before its deadline
+        Timeout<T> timeout = new Timeout<>(this, payload, Math.floorDiv(offset + tickNanos - 1, tickNanos));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Payloads of every timeout due at {@code nowNanos}, in no particular order.
+     */
+    List<T> advance(long nowNanos) {
+        List<T> expired = new ArrayList<>();
+        advanceLock.lock();
+        try {
+            fileScheduled();
+            unlinkCancelled();
+            long lastTick = Math.floorDiv(nowNanos - startNanos, tickNanos);
+            // After a stall, one turn visits every bucket; expire() compares against lastTick
+            long end = Math.min(lastTick, currentTick + mask);
+            for (long tick = currentTick; tick <= end; tick++) {
+                buckets[(int) (tick & mask)].expire(lastTick, expired);
+            }
+            currentTick = Math.max(currentTick, lastTick + 1);
+        } finally {
+            advanceLock.unlock();
+        }
+        return expired;
+    }
+
+    private void fileScheduled() {
+        Timeout<T> timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state == PENDING) {
+                // Already overdue: the current bucket is the next one to be expired
+                timeout.tick = Math.max(timeout.tick, currentTick);
+                buckets[(int) (timeout.tick & mask)].add(timeout);
+            }
+        }
+    }
+
+    private void unlinkCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    static final class Timeout<T> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimerWheel<T> wheel;
+        private final T payload;
+        private volatile int state = PENDING;
+        // Fields below are guarded by the wheel's advanceLock
+        private long tick;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(TimerWheel<T> wheel, T payload, long tick) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.tick = tick;
+        }
+
+        /**
+         * Whether this call stopped the timeout; false if it had already fired or been cancelled.
+         */
+        boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        private void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        private void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        private void expire(long lastTick, List<T> expired) {
+            Timeout<T> timeout = head;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.state != PENDING) {
+                    remove(timeout);
+                } else if (timeout.tick <= lastTick) {
+                    remove(timeout);
+                    if (Timeout.STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+                        expired.add(timeout.payload);
+                    }
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.kousenit.shopping.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitedDataSourceTest {
+    
+    private DataSource target;
+    private ConcurrencyLimitedDataSource dataSource;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new ConcurrencyLimitedDataSource(target, 1, 50);
+    }
+    
+    @Test
+    @DisplayName("Should time out when every permit is in use")
+    void testTimeoutWhenExhausted() throws SQLException {
+        // Given
+        Connection first = dataSource.getConnection();
+        
+        // When/Then
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertThat(dataSource.availablePermits()).isZero();
+        first.close();
+    }
+    
+    @Test
+    @DisplayName("Should release the permit once when the connection is closed")
+    void testReleaseOnClose() throws SQLException {
+        // Given
+        Connection first = dataSource.getConnection();
+        
+        // When
+        first.close();
+        first.close();
+        
+        // Then
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        Connection second = dataSource.getConnection();
+        assertThat(second).isNotNull();
+        second.close();
+    }
+    
+    @Test
+    @DisplayName("Should release the permit when the pool fails")
+    void testReleaseOnFailure() throws SQLException {
+        // Given
+        when(target.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        
+        // When/Then
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+    }
+}
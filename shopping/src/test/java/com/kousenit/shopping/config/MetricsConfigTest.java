@@ -0,0 +1,77 @@
+package com.kousenit.shopping.config;
+
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MetricsConfigTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private Long productId;
+    
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        Product product = new Product();
+        product.setName("Metered Product");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(5);
+        product.setSku("MET-000001");
+        productId = productRepository.save(product).getId();
+    }
+    
+    @Test
+    @DisplayName("Should time handler, service and serialization separately")
+    void testLayeredTimers() throws Exception {
+        // When
+        mockMvc.perform(get("/api/v1/products"))
+            .andExpect(status().isOk());
+        
+        // Then
+        Timer handler = meterRegistry.get("shopping.api.handler").tag("method", "getAllProducts").timer();
+        Timer service = meterRegistry.get("shopping.service").tag("method", "getAllProducts").timer();
+        Timer serialization = meterRegistry.get(TimedJacksonHttpMessageConverter.METRIC_NAME)
+            .tag("uri", "/api/v1/products").timer();
+        assertThat(handler.count()).isPositive();
+        assertThat(service.count()).isPositive();
+        assertThat(serialization.count()).isPositive();
+    }
+    
+    @Test
+    @DisplayName("Should publish percentile histogram buckets for service timers")
+    void testPercentileHistogram() throws Exception {
+        // When
+        mockMvc.perform(get("/api/v1/products/{id}", productId))
+            .andExpect(status().isOk());
+        
+        // Then
+        Timer service = meterRegistry.get("shopping.service").tag("method", "getProductById").timer();
+        assertThat(service.takeSnapshot().histogramCounts()).isNotEmpty();
+    }
+}
@@ -0,0 +1,77 @@
+package com.kousenit.shopping.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SampledRequestLoggingFilterTest {
+    
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(800);
+    
+    @Test
+    @DisplayName("Should log every request when the sample rate is one")
+    void testSampleEveryRequest() {
+        // Given
+        SampledRequestLoggingFilter filter = new SampledRequestLoggingFilter(1, 500);
+        
+        // When/Then
+        assertThat(filter.shouldLog(200, FAST)).isTrue();
+    }
+    
+    @Test
+    @DisplayName("Should always log server errors and slow requests")
+    void testErrorsAndSlowRequestsBypassSampling() {
+        // Given
+        SampledRequestLoggingFilter filter = new SampledRequestLoggingFilter(Integer.MAX_VALUE, 500);
+        
+        // When/Then
+        assertThat(filter.shouldLog(503, FAST)).isTrue();
+        assertThat(filter.shouldLog(200, SLOW)).isTrue();
+    }
+    
+    @Test
+    @DisplayName("Should log only a fraction of fast successful requests")
+    void testSampling() {
+        // Given
+        SampledRequestLoggingFilter filter = new SampledRequestLoggingFilter(100, 500);
+        
+        // When
+        int logged = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.shouldLog(200, FAST)) {
+                logged++;
+            }
+        }
+        
+        // Then
+        assertThat(logged).isBetween(20, 300);
+    }
+    
+    @Test
+    @DisplayName("Should pass the request down the chain")
+    void testPassesRequestOn() throws Exception {
+        // Given
+        SampledRequestLoggingFilter filter = new SampledRequestLoggingFilter(1, 500);
+        MockFilterChain chain = new MockFilterChain();
+        
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/products/1"), new MockHttpServletResponse(), chain);
+        
+        // Then
+        assertThat(chain.getRequest()).isNotNull();
+    }
+    
+    @Test
+    @DisplayName("Should reject a sample rate below one")
+    void testInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> new SampledRequestLoggingFilter(0, 500));
+    }
+}
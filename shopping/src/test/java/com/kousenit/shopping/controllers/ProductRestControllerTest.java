@@ -1,36 +1,69 @@
 package com.kousenit.shopping.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.kousenit.shopping.config.CborConfig;
+import com.kousenit.shopping.dto.BulkReservationRequest;
+import com.kousenit.shopping.dto.CursorPage;
+import com.kousenit.shopping.dto.ImportError;
+import com.kousenit.shopping.dto.ImportResult;
 import com.kousenit.shopping.dto.ProductRequest;
 import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.ReservationLine;
+import com.kousenit.shopping.dto.StockContention;
+import com.kousenit.shopping.dto.StockHoldRequest;
+import com.kousenit.shopping.dto.StockHoldResponse;
+import com.kousenit.shopping.dto.StockLevel;
 import com.kousenit.shopping.dto.StockUpdateRequest;
 import com.kousenit.shopping.exceptions.InsufficientStockException;
 import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.exceptions.StockHoldNotFoundException;
+import com.kousenit.shopping.services.LowStockNotifier;
+import com.kousenit.shopping.services.ProductExportService;
+import com.kousenit.shopping.services.ProductImportService;
+import com.kousenit.shopping.services.ProductJsonCache;
 import com.kousenit.shopping.services.ProductService;
+import com.kousenit.shopping.services.ProductVersions;
+import com.kousenit.shopping.services.StockHolds;
+import com.kousenit.shopping.services.StockService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProductRestController.class)
+@Import({ProductVersions.class, ProductJsonCache.class, CborConfig.class})
 @ActiveProfiles("test")
 class ProductRestControllerTest {
     
@@ -40,9 +73,33 @@ class ProductRestControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private ProductJsonCache productJsonCache;
+    
     @MockitoBean
     private ProductService productService;
     
+    @MockitoBean
+    private StockService stockService;
+    
+    @MockitoBean
+    private StockHolds stockHolds;
+    
+    @MockitoBean
+    private ProductExportService productExportService;
+    
+    @MockitoBean
+    private ProductImportService productImportService;
+    
+    @MockitoBean
+    private LowStockNotifier lowStockNotifier;
+    
+    @BeforeEach
+    void setUp() {
+        // Cached payloads would outlive the per-test service stubs
+        productJsonCache.clear();
+    }
+    
     private ProductResponse createSampleProductResponse() {
         return new ProductResponse(
             1L,
@@ -103,6 +160,21 @@ class ProductRestControllerTest {
             .andExpect(jsonPath("$.productId").value(999));
     }
     
+    @Test
+    @DisplayName("Should get product by SKU successfully")
+    void testGetProductBySku() throws Exception {
+        // Given
+        ProductResponse product = createSampleProductResponse();
+        when(productService.getProductBySku("TST-123456")).thenReturn(product);
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/sku/TST-123456"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(jsonPath("$.sku").value("TST-123456"));
+    }
+    
     @Test
     @DisplayName("Should get all products with pagination")
     void testGetAllProducts() throws Exception {
@@ -128,12 +200,168 @@ class ProductRestControllerTest {
             .andExpect(jsonPath("$.number").value(0));
     }
     
+    @Test
+    @DisplayName("Should answer 304 for an unchanged product without loading it again")
+    void testGetProductNotModified() throws Exception {
+        // Given
+        ProductResponse product = createSampleProductResponse();
+        when(productService.getProductById(1L)).thenReturn(product);
+        String etag = mockMvc.perform(get("/api/v1/products/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("Last-Modified"))
+            .andReturn().getResponse().getHeader("ETag");
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/1").header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string("ETag", etag))
+            .andExpect(content().string(""));
+        verify(productService, times(1)).getProductById(1L);
+    }
+    
+    @Test
+    @DisplayName("Should return the full product when its ETag no longer matches")
+    void testGetProductModified() throws Exception {
+        // Given
+        when(productService.getProductById(1L)).thenReturn(createSampleProductResponse());
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/1").header("If-None-Match", "\"p1-0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andExpect(jsonPath("$.name").value("Test Product"));
+    }
+    
+    @Test
+    @DisplayName("Should serve repeated product reads from the cached JSON payload")
+    void testGetProductFromJsonCache() throws Exception {
+        // Given
+        when(productService.getProductById(1L)).thenReturn(createSampleProductResponse());
+        String first = mockMvc.perform(get("/api/v1/products/1"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/1"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(content().json(first))
+            .andExpect(jsonPath("$.stockStatus").value("IN_STOCK"));
+        verify(productService, times(1)).getProductById(1L);
+    }
+    
+    @Test
+    @DisplayName("Should answer 304 for an unchanged catalog without running the query")
+    void testGetAllProductsNotModified() throws Exception {
+        // Given
+        when(productService.getAllProducts(any()))
+            .thenReturn(new PageImpl<>(List.of(createSampleProductResponse()), PageRequest.of(0, 20), 1));
+        String etag = mockMvc.perform(get("/api/v1/products"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products").header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+        verify(productService, times(1)).getAllProducts(any());
+    }
+    
+    @Test
+    @DisplayName("Should scroll products with a cursor")
+    void testScrollProducts() throws Exception {
+        // Given
+        ProductResponse product = createSampleProductResponse();
+        when(productService.scrollProducts("abc", 1))
+            .thenReturn(new CursorPage<>(List.of(product), 1, true, "next"));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/scroll?cursor=abc&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.content", hasSize(1)))
+            .andExpect(jsonPath("$.hasNext").value(true))
+            .andExpect(jsonPath("$.nextCursor").value("next"))
+            .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+    
+    @Test
+    @DisplayName("Should stream the catalog as NDJSON")
+    void testExportProducts() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(productExportService).exportCatalog(any());
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/v1/products/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+    
+    @Test
+    @DisplayName("Should stream every low stock product as NDJSON when asked for it")
+    void testStreamLowStockProducts() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"id\":4}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(productExportService).exportLowStock(eq(5), any());
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/v1/products/low-stock?threshold=5")
+                .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+            .andExpect(content().string("{\"id\":4}\n{\"id\":2}\n"));
+        verify(productService, times(0)).getLowStockProducts(any(Integer.class), any(Integer.class));
+    }
+    
+    @Test
+    @DisplayName("Should reject an inverted price range before streaming NDJSON")
+    void testStreamProductsByPriceRangeRejectsInvertedRange() throws Exception {
+        mockMvc.perform(get("/api/v1/products/price-range?minPrice=50&maxPrice=10")
+                .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(status().isBadRequest());
+        verify(productExportService, times(0)).exportPriceRange(any(), any(), any());
+    }
+    
+    @Test
+    @DisplayName("Should import products from NDJSON and report rejected rows")
+    void testImportProducts() throws Exception {
+        // Given
+        when(productImportService.importCatalog(any())).thenReturn(new ImportResult(2, 1, 1,
+            List.of(new ImportError(2, "BAD-1", "sku: SKU must follow the pattern"))));
+        
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"sku\":\"TST-123456\"}\n{\"sku\":\"BAD-1\"}\n"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
+    
     @Test
     @DisplayName("Should search products by name")
     void testSearchProducts() throws Exception {
         // Given
         ProductResponse product = createSampleProductResponse();
-        when(productService.searchProductsByName("Test")).thenReturn(List.of(product));
+        when(productService.searchProductsByName("Test", 0, 50)).thenReturn(new SliceImpl<>(List.of(product)));
         
         // When/Then
         mockMvc.perform(get("/api/v1/products/search?name=Test"))
@@ -141,6 +369,37 @@ class ProductRestControllerTest {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON))
             .andExpect(jsonPath("$").isArray())
             .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].name").value("Test Product"))
+            .andExpect(header().doesNotExist(ProductRestController.RESULT_TRUNCATED));
+    }
+    
+    @Test
+    @DisplayName("Should flag a search page that has more results after it")
+    void testSearchProductsTruncated() throws Exception {
+        // Given
+        ProductResponse product = createSampleProductResponse();
+        when(productService.searchProductsByName("Test", 0, 1)).thenReturn(new SliceImpl<>(
+            List.of(product), PageRequest.of(0, 1), true));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/search?name=Test&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().string(ProductRestController.RESULT_TRUNCATED, "true"));
+    }
+    
+    @Test
+    @DisplayName("Should search products by name within a price range")
+    void testSearchProductsWithPriceRange() throws Exception {
+        // Given
+        ProductResponse product = createSampleProductResponse();
+        when(productService.searchProducts("Test", new BigDecimal("50"), new BigDecimal("999999.99"), 0, 50))
+            .thenReturn(new SliceImpl<>(List.of(product)));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/search?name=Test&minPrice=50"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
             .andExpect(jsonPath("$[0].name").value("Test Product"));
     }
     
@@ -149,7 +408,7 @@ class ProductRestControllerTest {
     void testGetProductsByPriceRange() throws Exception {
         // Given
         ProductResponse product = createSampleProductResponse();
-        when(productService.getProductsByPriceRange(any(), any())).thenReturn(List.of(product));
+        when(productService.getProductsByPriceRange(any(), any(), eq(100))).thenReturn(new SliceImpl<>(List.of(product)));
         
         // When/Then
         mockMvc.perform(get("/api/v1/products/price-range?minPrice=50&maxPrice=150"))
@@ -180,6 +439,49 @@ class ProductRestControllerTest {
             .andExpect(jsonPath("$.sku").value("TST-123456"));
     }
     
+    @Test
+    @DisplayName("Should read a CBOR request body and answer in CBOR")
+    void testCreateProductCbor() throws Exception {
+        // Given
+        ObjectMapper cborMapper = CBORMapper.builder().findAndAddModules().build();
+        when(productService.createProduct(any(ProductRequest.class))).thenReturn(createSampleProductResponse());
+        
+        // When
+        byte[] body = mockMvc.perform(post("/api/v1/products")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(createSampleProductRequest())))
+            .andExpect(status().isCreated())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+        
+        // Then
+        ProductResponse created = cborMapper.readValue(body, ProductResponse.class);
+        assertThat(created.sku()).isEqualTo("TST-123456");
+        assertThat(created.price()).isEqualByComparingTo("99.99");
+    }
+    
+    @Test
+    @DisplayName("Should serve a product as CBOR with its own ETag")
+    void testGetProductCbor() throws Exception {
+        // Given
+        ObjectMapper cborMapper = CBORMapper.builder().findAndAddModules().build();
+        ProductResponse product = createSampleProductResponse();
+        when(productService.getProductById(1L)).thenReturn(product);
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/v1/products/1").accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string("ETag", endsWith("-cbor\"")))
+            .andReturn();
+        
+        // Then
+        ProductResponse decoded = cborMapper.readValue(result.getResponse().getContentAsByteArray(), ProductResponse.class);
+        assertThat(decoded.name()).isEqualTo("Test Product");
+        assertThat(decoded.updatedAt()).isEqualTo(product.updatedAt());
+    }
+    
     @Test
     @DisplayName("Should return validation errors for invalid product")
     void testCreateProductValidationErrors() throws Exception {
@@ -223,6 +525,23 @@ class ProductRestControllerTest {
             .andExpect(jsonPath("$.name").value("Test Product"));
     }
     
+    @Test
+    @DisplayName("Should return 409 when a concurrent update wins every retry")
+    void testUpdateProductConflict() throws Exception {
+        // Given
+        ProductRequest request = createSampleProductRequest();
+        when(productService.updateProduct(anyLong(), any(ProductRequest.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException("Product", 1L));
+        
+        // When/Then
+        mockMvc.perform(put("/api/v1/products/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.title").value("Concurrent Modification"))
+            .andExpect(jsonPath("$.productId").value(1));
+    }
+    
     @Test
     @DisplayName("Should delete product successfully")
     void testDeleteProduct() throws Exception {
@@ -237,7 +556,7 @@ class ProductRestControllerTest {
         // Given
         StockUpdateRequest request = new StockUpdateRequest(50);
         ProductResponse response = createSampleProductResponse();
-        when(productService.updateStock(anyLong(), any(Integer.class))).thenReturn(response);
+        when(stockService.updateStock(anyLong(), any(Integer.class))).thenReturn(response);
         
         // When/Then
         mockMvc.perform(put("/api/v1/products/1/stock")
@@ -254,7 +573,7 @@ class ProductRestControllerTest {
         // Given
         StockUpdateRequest request = new StockUpdateRequest(5);
         ProductResponse response = createSampleProductResponse();
-        when(productService.reserveStock(anyLong(), any(Integer.class))).thenReturn(response);
+        when(stockService.reserveStock(anyLong(), any(Integer.class))).thenReturn(response);
         
         // When/Then
         mockMvc.perform(post("/api/v1/products/1/reserve-stock")
@@ -270,7 +589,7 @@ class ProductRestControllerTest {
     void testReserveStockInsufficientStock() throws Exception {
         // Given
         StockUpdateRequest request = new StockUpdateRequest(50);
-        when(productService.reserveStock(anyLong(), any(Integer.class)))
+        when(stockService.reserveStock(anyLong(), any(Integer.class)))
             .thenThrow(new InsufficientStockException(1L, 50, 10));
         
         // When/Then
@@ -286,13 +605,120 @@ class ProductRestControllerTest {
             .andExpect(jsonPath("$.availableQuantity").value(10));
     }
     
+    @Test
+    @DisplayName("Should place a stock hold with the requested TTL")
+    void testPlaceStockHold() throws Exception {
+        // Given
+        StockHoldRequest request = new StockHoldRequest(3, 60);
+        when(stockHolds.place(1L, 3, 60)).thenReturn(new StockHoldResponse("hold-1", 1L, "TST-123456", 3,
+            LocalDateTime.now().plusSeconds(60), StockHoldResponse.Status.HELD));
+        
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/1/holds")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.holdId").value("hold-1"))
+            .andExpect(jsonPath("$.quantity").value(3))
+            .andExpect(jsonPath("$.status").value("HELD"));
+    }
+    
+    @Test
+    @DisplayName("Should confirm a stock hold")
+    void testConfirmStockHold() throws Exception {
+        // Given
+        when(stockHolds.confirm("hold-1")).thenReturn(new StockHoldResponse("hold-1", 1L, "TST-123456", 3,
+            LocalDateTime.now().plusSeconds(60), StockHoldResponse.Status.CONFIRMED));
+        
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/holds/hold-1/confirm"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("CONFIRMED"));
+    }
+    
+    @Test
+    @DisplayName("Should return 404 when cancelling a hold that is no longer active")
+    void testCancelUnknownStockHold() throws Exception {
+        // Given
+        when(stockHolds.cancel("gone")).thenThrow(new StockHoldNotFoundException("gone"));
+        
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/holds/gone/cancel"))
+            .andExpect(status().isNotFound())
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.type").value("https://api.shopping.com/problems/stock-hold-not-found"))
+            .andExpect(jsonPath("$.holdId").value("gone"));
+    }
+    
+    @Test
+    @DisplayName("Should accept a cancel whose stock is still being given back")
+    void testCancelStockHoldPending() throws Exception {
+        // Given
+        when(stockHolds.cancel("hold-1")).thenReturn(new StockHoldResponse("hold-1", 1L, "TST-123456", 3,
+            LocalDateTime.now().plusSeconds(60), StockHoldResponse.Status.CANCEL_PENDING));
+    
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/holds/hold-1/cancel"))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.status").value("CANCEL_PENDING"));
+    }
+    
+    @Test
+    @DisplayName("Should reserve stock atomically")
+    void testReserveStockAtomically() throws Exception {
+        // Given
+        StockUpdateRequest request = new StockUpdateRequest(5);
+        when(stockService.reserveStockAtomically(anyLong(), any(Integer.class)))
+            .thenReturn(new StockLevel(1L, "TST-123456", 5));
+        
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/1/reserve-stock/atomic")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(jsonPath("$.sku").value("TST-123456"))
+            .andExpect(jsonPath("$.quantity").value(5));
+    }
+    
+    @Test
+    @DisplayName("Should reserve stock for several order lines")
+    void testReserveStockForOrderLines() throws Exception {
+        // Given
+        BulkReservationRequest request = new BulkReservationRequest(List.of(
+            new ReservationLine(1L, 2),
+            new ReservationLine(2L, 1)));
+        ProductResponse response = createSampleProductResponse();
+        when(productService.reserveStock(any())).thenReturn(List.of(response));
+        
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/reserve-stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id").value(1));
+    }
+    
+    @Test
+    @DisplayName("Should reject an empty bulk reservation")
+    void testReserveStockForOrderLinesEmpty() throws Exception {
+        // When/Then
+        mockMvc.perform(post("/api/v1/products/reserve-stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BulkReservationRequest(List.of()))))
+            .andExpect(status().isBadRequest());
+    }
+    
     @Test
     @DisplayName("Should add stock successfully")
     void testAddStock() throws Exception {
         // Given
         StockUpdateRequest request = new StockUpdateRequest(10);
         ProductResponse response = createSampleProductResponse();
-        when(productService.addStock(anyLong(), any(Integer.class))).thenReturn(response);
+        when(stockService.addStock(anyLong(), any(Integer.class))).thenReturn(response);
         
         // When/Then
         mockMvc.perform(post("/api/v1/products/1/add-stock")
@@ -308,7 +734,8 @@ class ProductRestControllerTest {
     void testGetLowStockProducts() throws Exception {
         // Given
         ProductResponse product = createSampleProductResponse();
-        when(productService.getLowStockProducts(any(Integer.class))).thenReturn(List.of(product));
+        when(productService.getLowStockProducts(any(Integer.class), eq(100)))
+            .thenReturn(new SliceImpl<>(List.of(product)));
         
         // When/Then
         mockMvc.perform(get("/api/v1/products/low-stock?threshold=5"))
@@ -318,12 +745,95 @@ class ProductRestControllerTest {
             .andExpect(jsonPath("$", hasSize(1)));
     }
     
+    @Test
+    @DisplayName("Should get low stock levels")
+    void testGetLowStockLevels() throws Exception {
+        // Given
+        when(productService.getLowStockLevels(5, 100))
+            .thenReturn(new SliceImpl<>(List.of(new StockLevel(1L, "TST-001", 2))));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/low-stock/levels?threshold=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].sku").value("TST-001"))
+            .andExpect(jsonPath("$[0].quantity").value(2))
+            .andExpect(header().doesNotExist(ProductRestController.RESULT_TRUNCATED));
+    }
+    
+    @Test
+    @DisplayName("Should flag a low stock list cut short by its limit")
+    void testGetLowStockLevelsTruncated() throws Exception {
+        // Given
+        when(productService.getLowStockLevels(5, 1)).thenReturn(new SliceImpl<>(
+            List.of(new StockLevel(1L, "TST-001", 2)), PageRequest.of(0, 1), true));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/low-stock/levels?threshold=5&limit=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().string(ProductRestController.RESULT_TRUNCATED, "true"));
+    }
+    
+    @Test
+    @DisplayName("Should report the most contended products")
+    void testGetStockContention() throws Exception {
+        // Given
+        when(stockService.getStockContention(10))
+            .thenReturn(List.of(new StockContention(1L, "TST-001", 120, 30, 96, 8)));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/stock/contention?limit=10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].sku").value("TST-001"))
+            .andExpect(jsonPath("$[0].combinedOperations").value(96));
+    }
+    
+    @Test
+    @DisplayName("Should replay a product's stock from the journal")
+    void testReplayStock() throws Exception {
+        // Given
+        when(stockService.replayStock(1L)).thenReturn(new StockLevel(1L, "TST-001", 42));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/1/stock/replay"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.sku").value("TST-001"))
+            .andExpect(jsonPath("$.quantity").value(42));
+    }
+    
+    @Test
+    @DisplayName("Should return 404 when no stock movements were recorded")
+    void testReplayStockWithoutMovements() throws Exception {
+        // Given
+        when(stockService.replayStock(999L))
+            .thenThrow(new ProductNotFoundException("No stock movements recorded for product 999"));
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/999/stock/replay"))
+            .andExpect(status().isNotFound());
+    }
+    
+    @Test
+    @DisplayName("Should open a low stock event stream")
+    void testStreamLowStockAlerts() throws Exception {
+        // Given
+        when(lowStockNotifier.subscribe()).thenReturn(new SseEmitter());
+        
+        // When/Then
+        mockMvc.perform(get("/api/v1/products/low-stock/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(request().asyncStarted());
+    }
+    
     @Test
     @DisplayName("Should get expensive products")
     void testGetExpensiveProducts() throws Exception {
         // Given
         ProductResponse product = createSampleProductResponse();
-        when(productService.getExpensiveProducts(any(BigDecimal.class))).thenReturn(List.of(product));
+        when(productService.getExpensiveProducts(any(BigDecimal.class), eq(100)))
+            .thenReturn(new SliceImpl<>(List.of(product)));
         
         // When/Then
         mockMvc.perform(get("/api/v1/products/expensive?minPrice=50"))
@@ -0,0 +1,127 @@
+package com.kousenit.shopping.controllers;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.services.ReactiveProductService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReactiveProductController.class)
+@ActiveProfiles("test")
+class ReactiveProductControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockitoBean
+    private ReactiveProductService reactiveProductService;
+    
+    private ProductResponse createSampleProductResponse(Long id) {
+        return new ProductResponse(
+            id,
+            "Test Product " + id,
+            new BigDecimal("99.99"),
+            "Test Description",
+            10,
+            "TST-00000" + id,
+            "test@example.com",
+            LocalDateTime.now(),
+            LocalDateTime.now(),
+            true,
+            "MEDIUM_STOCK"
+        );
+    }
+    
+    @Test
+    @DisplayName("Should get product by id")
+    void testGetProduct() throws Exception {
+        // Given
+        when(reactiveProductService.getProductById(1L)).thenReturn(Mono.just(createSampleProductResponse(1L)));
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/reactive/products/1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(1))
+            .andExpect(jsonPath("$.name").value("Test Product 1"));
+    }
+    
+    @Test
+    @DisplayName("Should return problem detail when product not found")
+    void testGetProductNotFound() throws Exception {
+        // Given
+        when(reactiveProductService.getProductById(999L))
+            .thenReturn(Mono.error(new ProductNotFoundException(999L)));
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/reactive/products/999"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotFound())
+            .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+            .andExpect(jsonPath("$.status").value(404));
+    }
+    
+    @Test
+    @DisplayName("Should collect products into a JSON array")
+    void testGetAllProductsAsJson() throws Exception {
+        // Given
+        when(reactiveProductService.streamProducts())
+            .thenReturn(Flux.just(createSampleProductResponse(1L), createSampleProductResponse(2L)));
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/reactive/products").accept(MediaType.APPLICATION_JSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)));
+    }
+    
+    @Test
+    @DisplayName("Should stream search results as NDJSON")
+    void testSearchProductsAsNdjson() throws Exception {
+        // Given
+        when(reactiveProductService.searchProductsByName("Test"))
+            .thenReturn(Flux.just(createSampleProductResponse(1L), createSampleProductResponse(2L)));
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/reactive/products/search?name=Test")
+                .accept(MediaType.APPLICATION_NDJSON))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+            .andExpect(content().string(containsString("\"id\":2")));
+    }
+}
@@ -1,14 +1,22 @@
 package com.kousenit.shopping.repositories;
 
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockLevel;
 import com.kousenit.shopping.entities.Product;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -102,6 +110,17 @@ class ProductRepositoryTest {
         assertThat(count).isEqualTo(2);
     }
     
+    @Test
+    @DisplayName("Should walk the catalog by (name, id) keyset")
+    void testKeysetPagination() {
+        List<ProductResponse> firstPage = productRepository.findFirstResponsesByName(Limit.of(2));
+        ProductResponse last = firstPage.get(firstPage.size() - 1);
+        List<ProductResponse> secondPage = productRepository.findResponsePageAfter(last.name(), last.id(), Limit.of(2));
+        
+        assertThat(firstPage).extracting(ProductResponse::name).containsExactly("AirPods Pro", "MacBook Pro");
+        assertThat(secondPage).extracting(ProductResponse::name).containsExactly("iPhone 15");
+    }
+    
     @Test
     @DisplayName("Should find low stock products")
     void testFindLowStockProducts() {
@@ -137,7 +156,7 @@ class ProductRepositoryTest {
         Long productId = testProduct1.getId();
         Integer originalQuantity = testProduct1.getQuantity();
         
-        productRepository.decrementStock(productId, 5);
+        productRepository.decrementStock(productId, 5, LocalDateTime.now());
         entityManager.flush();
         entityManager.clear();
         
@@ -151,7 +170,7 @@ class ProductRepositoryTest {
         Long productId = testProduct1.getId();
         Integer originalQuantity = testProduct1.getQuantity();
         
-        productRepository.incrementStock(productId, 10);
+        productRepository.incrementStock(productId, 10, LocalDateTime.now());
         entityManager.flush();
         entityManager.clear();
         
@@ -159,6 +178,88 @@ class ProductRepositoryTest {
         assertThat(updated.getQuantity()).isEqualTo(originalQuantity + 10);
     }
     
+    @Test
+    @DisplayName("Should bump the version on bulk stock updates")
+    void testBulkStockUpdateBumpsVersion() {
+        Long productId = testProduct1.getId();
+        Long originalVersion = testProduct1.getVersion();
+        
+        productRepository.incrementStock(productId, 1, LocalDateTime.now());
+        productRepository.decrementStock(productId, 1, LocalDateTime.now());
+        entityManager.clear();
+        
+        Product updated = productRepository.findById(productId).orElseThrow();
+        assertThat(updated.getVersion()).isEqualTo(originalVersion + 2);
+    }
+    
+    @Test
+    @DisplayName("Should stamp updatedAt on bulk stock updates")
+    void testBulkStockUpdateStampsUpdatedAt() {
+        Long productId = testProduct1.getId();
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+        
+        productRepository.incrementStock(productId, 1, now);
+        entityManager.clear();
+        
+        Product updated = productRepository.findById(productId).orElseThrow();
+        assertThat(updated.getUpdatedAt()).isEqualTo(now);
+    }
+    
+    @Test
+    @DisplayName("Should decrement stock only when enough is available")
+    void testDecrementStockIfAvailable() {
+        Long productId = testProduct3.getId();
+        
+        int updated = productRepository.decrementStockIfAvailable(productId, 3, LocalDateTime.now());
+        int rejected = productRepository.decrementStockIfAvailable(productId, 3, LocalDateTime.now());
+        entityManager.clear();
+        
+        assertThat(updated).isEqualTo(1);
+        assertThat(rejected).isZero();
+        assertThat(productRepository.findStockLevelById(productId))
+            .contains(new StockLevel(productId, "APP-000003", 2, testProduct3.getVersion() + 1));
+    }
+    
+    @Test
+    @DisplayName("Should read a page of responses without managing entities")
+    void testFindAllResponses() {
+        entityManager.clear();
+        
+        Page<ProductResponse> page = productRepository.findAllResponses(
+            PageRequest.of(0, 2, Sort.by("price").descending()));
+        
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(ProductResponse::name)
+            .containsExactly("MacBook Pro", "iPhone 15");
+        assertThat(entityManager.getEntityManager().unwrap(Session.class)
+            .getStatistics().getEntityCount()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should derive stock flags in projected responses")
+    void testProjectedStockStatus() {
+        List<ProductResponse> responses = productRepository.findLowStockResponses(20, Limit.of(10));
+        
+        assertThat(responses).extracting(ProductResponse::sku).containsExactly("APP-000003", "APP-000002");
+        assertThat(responses.get(0).stockStatus()).isEqualTo("LOW_STOCK");
+        assertThat(responses.get(1).stockStatus()).isEqualTo("MEDIUM_STOCK");
+        assertThat(responses).allMatch(ProductResponse::inStock);
+    }
+    
+    @Test
+    @DisplayName("Should project name, price and keyset queries")
+    void testProjectionQueries() {
+        assertThat(productRepository.findResponsesByNameContaining("pro", PageRequest.of(0, 10)))
+            .extracting(ProductResponse::name).containsExactly("MacBook Pro", "AirPods Pro");
+        assertThat(productRepository.findResponsesByPriceBetween(
+                new BigDecimal("200.00"), new BigDecimal("1000.00"), Limit.of(1)))
+            .extracting(ProductResponse::name).containsExactly("AirPods Pro");
+        assertThat(productRepository.findExpensiveResponses(new BigDecimal("500.00"), Limit.of(10)))
+            .extracting(ProductResponse::name).containsExactly("MacBook Pro", "iPhone 15");
+        assertThat(productRepository.findResponsePageAfter("AirPods Pro", testProduct3.getId(), Limit.of(5)))
+            .extracting(ProductResponse::name).containsExactly("MacBook Pro", "iPhone 15");
+    }
+    
     @Test
     @DisplayName("Should find recent products in stock with native query")
     void testFindRecentProductsInStock() {
@@ -0,0 +1,142 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.events.LowStockAlert;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static com.kousenit.shopping.events.StockChangedEvent.Reason.ADJUSTMENT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LowStockTrackerTest {
+    
+    private ProductRepository productRepository;
+    private StockLedger stockLedger;
+    private ApplicationEventPublisher eventPublisher;
+    private LowStockTracker tracker;
+    
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        stockLedger = mock(StockLedger.class);
+        when(stockLedger.flushPending()).thenReturn(true);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        when(productRepository.findAllStockLevels()).thenReturn(List.of(
+            new StockLevel(1L, "SKU-1", 50),
+            new StockLevel(2L, "SKU-2", 3),
+            new StockLevel(3L, "SKU-3", 12),
+            new StockLevel(4L, "SKU-4", 0)));
+        tracker = new LowStockTracker(productRepository, stockLedger, eventPublisher, 10, true);
+        tracker.rebuild();
+    }
+    
+    @Test
+    @DisplayName("Should list products below a threshold lowest first without alerting on build")
+    void testFindBelow() {
+        assertThat(tracker.isReady()).isTrue();
+        assertThat(tracker.findBelow(10)).extracting(StockLevel::id).containsExactly(4L, 2L);
+        assertThat(tracker.findBelow(20)).extracting(StockLevel::id).containsExactly(4L, 2L, 3L);
+        assertThat(tracker.findBelow(20, 2)).extracting(StockLevel::id).containsExactly(4L, 2L);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+    
+    @Test
+    @DisplayName("Should alert when stock drops below the threshold")
+    void testCrossingBelow() {
+        tracker.onStockChanged(new StockChangedEvent(3L, "SKU-3", 12, 7, ADJUSTMENT, 1L));
+        
+        assertThat(tracker.findBelow(10)).extracting(StockLevel::id).containsExactly(4L, 2L, 3L);
+        verify(eventPublisher).publishEvent(
+            new LowStockAlert(3L, "SKU-3", 7, 10, LowStockAlert.Crossing.BELOW_THRESHOLD));
+    }
+    
+    @Test
+    @DisplayName("Should alert when stock is restocked above the threshold")
+    void testRestocked() {
+        tracker.onStockChanged(new StockChangedEvent(2L, "SKU-2", 3, 20, ADJUSTMENT, 1L));
+        
+        assertThat(tracker.findBelow(10)).extracting(StockLevel::id).containsExactly(4L);
+        verify(eventPublisher).publishEvent(
+            new LowStockAlert(2L, "SKU-2", 20, 10, LowStockAlert.Crossing.RESTOCKED));
+    }
+    
+    @Test
+    @DisplayName("Should not alert for changes that stay on one side of the threshold")
+    void testNoCrossing() {
+        tracker.onStockChanged(new StockChangedEvent(1L, "SKU-1", 50, 40, ADJUSTMENT, 1L));
+        tracker.onStockChanged(new StockChangedEvent(2L, "SKU-2", 3, 1, ADJUSTMENT, 1L));
+        
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+    
+    @Test
+    @DisplayName("Should converge when stock events arrive out of order")
+    void testOutOfOrderEvents() {
+        tracker.onStockChanged(new StockChangedEvent(1L, "SKU-1", 45, 42, ADJUSTMENT, 1L));
+        tracker.onStockChanged(new StockChangedEvent(1L, "SKU-1", 50, 45, ADJUSTMENT, 1L));
+        
+        assertThat(tracker.findBelow(43)).containsExactly(
+            new StockLevel(4L, "SKU-4", 0), new StockLevel(2L, "SKU-2", 3),
+            new StockLevel(3L, "SKU-3", 12), new StockLevel(1L, "SKU-1", 42));
+    }
+    
+    @Test
+    @DisplayName("Should follow product updates and deletions")
+    void testProductChanges() {
+        tracker.onProductChanged(ProductChangedEvent.deleted(2L));
+        
+        assertThat(tracker.findBelow(10)).extracting(StockLevel::id).containsExactly(4L);
+        assertThat(tracker.size()).isEqualTo(3);
+    }
+    
+    @Test
+    @DisplayName("Should not let a resync overwrite changes made while it was reading")
+    void testResyncKeepsConcurrentChanges() {
+        // Given a snapshot taken before a reservation and a deletion commit
+        when(productRepository.findAllStockLevels()).thenAnswer(invocation -> {
+            List<StockLevel> snapshot = List.of(
+                new StockLevel(1L, "SKU-1", 50),
+                new StockLevel(2L, "SKU-2", 3),
+                new StockLevel(3L, "SKU-3", 12),
+                new StockLevel(4L, "SKU-4", 0));
+            tracker.onStockChanged(new StockChangedEvent(1L, "SKU-1", 50, 5, ADJUSTMENT, 1L));
+            tracker.onProductChanged(ProductChangedEvent.deleted(2L));
+            return snapshot;
+        });
+        
+        // When
+        tracker.resync();
+        
+        // Then
+        assertThat(tracker.findBelow(10)).containsExactly(
+            new StockLevel(4L, "SKU-4", 0), new StockLevel(1L, "SKU-1", 5));
+        assertThat(tracker.size()).isEqualTo(3);
+    }
+    
+    @Test
+    @DisplayName("Should skip a resync while the stock ledger cannot flush")
+    void testResyncWaitsForLedgerFlush() {
+        // Given a reservation still pending in the ledger
+        tracker.onStockChanged(new StockChangedEvent(3L, "SKU-3", 12, 2, ADJUSTMENT, 1L));
+        when(stockLedger.flushPending()).thenReturn(false);
+        
+        // When
+        tracker.resync();
+        
+        // Then
+        assertThat(tracker.findBelow(10)).extracting(StockLevel::id).containsExactly(4L, 3L, 2L);
+        verify(productRepository).findAllStockLevels();
+    }
+}
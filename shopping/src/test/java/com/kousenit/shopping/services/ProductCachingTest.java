@@ -0,0 +1,98 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.config.CacheConfig;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "spring.cache.type=caffeine")
+@ActiveProfiles("test")
+class ProductCachingTest {
+    
+    @MockitoBean
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    private Product testProduct;
+    
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        
+        testProduct = new Product();
+        testProduct.setId(1L);
+        testProduct.setName("Cached Product");
+        testProduct.setPrice(new BigDecimal("49.99"));
+        testProduct.setQuantity(10);
+        testProduct.setSku("CCH-123456");
+        testProduct.setContactEmail("cache@example.com");
+    }
+    
+    @Test
+    @DisplayName("Should serve repeated reads by id from the cache")
+    void testGetProductByIdIsCached() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        
+        // When
+        ProductResponse first = productService.getProductById(1L);
+        ProductResponse second = productService.getProductById(1L);
+        
+        // Then
+        assertThat(second).isEqualTo(first);
+        verify(productRepository, times(1)).findById(1L);
+    }
+    
+    @Test
+    @DisplayName("Should serve repeated reads by SKU from the cache")
+    void testGetProductBySkuIsCached() {
+        // Given
+        when(productRepository.findBySku("CCH-123456")).thenReturn(Optional.of(testProduct));
+        
+        // When
+        productService.getProductBySku("CCH-123456");
+        productService.getProductBySku("CCH-123456");
+        
+        // Then
+        verify(productRepository, times(1)).findBySku("CCH-123456");
+    }
+    
+    @Test
+    @DisplayName("Should evict cached product when its stock changes")
+    void testStockChangeEvictsCache() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.findBySku("CCH-123456")).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+        productService.getProductById(1L);
+        productService.getProductBySku("CCH-123456");
+        
+        // When
+        productService.reserveStock(1L, 3);
+        ProductResponse afterReservation = productService.getProductById(1L);
+        
+        // Then
+        assertThat(afterReservation.quantity()).isEqualTo(7);
+        assertThat(cacheManager.getCache(CacheConfig.PRODUCTS_BY_SKU).get("CCH-123456")).isNull();
+    }
+}
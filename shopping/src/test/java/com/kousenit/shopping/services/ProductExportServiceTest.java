@@ -0,0 +1,78 @@
+package com.kousenit.shopping.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductExportServiceTest {
+    
+    @Autowired
+    private ProductExportService productExportService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        productRepository.saveAll(List.of(
+            createProduct("Export One", "EXP-000001"),
+            createProduct("Export Two", "EXP-000002"),
+            createProduct("Export Three", "EXP-000003")));
+    }
+    
+    @Test
+    @DisplayName("Should write one JSON document per product line")
+    void testExportCatalog() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        long count = productExportService.exportCatalog(out);
+        
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(3);
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readValue(lines[0], ProductResponse.class).sku()).isEqualTo("EXP-000001");
+        assertThat(objectMapper.readValue(lines[2], ProductResponse.class).sku()).isEqualTo("EXP-000003");
+    }
+    
+    @Test
+    @DisplayName("Should write nothing for an empty catalog")
+    void testExportEmptyCatalog() throws Exception {
+        productRepository.deleteAll();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        long count = productExportService.exportCatalog(out);
+        
+        assertThat(count).isZero();
+        assertThat(out.size()).isZero();
+    }
+    
+    private Product createProduct(String name, String sku) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("10.00"));
+        product.setQuantity(5);
+        product.setSku(sku);
+        product.setContactEmail("export@example.com");
+        return product;
+    }
+}
@@ -0,0 +1,106 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ImportError;
+import com.kousenit.shopping.dto.ImportResult;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "shopping.import.batch-size=2")
+@ActiveProfiles("test")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+
+        Product existing = new Product();
+        existing.setName("Existing Product");
+        existing.setPrice(new BigDecimal("5.00"));
+        existing.setQuantity(1);
+        existing.setSku("EXI-000001");
+        productRepository.save(existing);
+    }
+
+    @Test
+    @DisplayName("Should insert valid rows across several batches")
+    void testImport() throws IOException {
+        ImportResult result = importLines(
+            row("First Product", "10.00", 5, "IMP-000001"),
+            row("Second Product", "20.00", 0, "IMP-000002"),
+            "",
+            row("Third Product", "30.50", 7, "IMP-000003"));
+
+        assertThat(result.processed()).isEqualTo(3);
+        assertThat(result.imported()).isEqualTo(3);
+        assertThat(result.errors()).isEmpty();
+
+        Product third = productRepository.findBySku("IMP-000003").orElseThrow();
+        assertThat(third.getPrice()).isEqualByComparingTo("30.50");
+        assertThat(third.getVersion()).isZero();
+        assertThat(third.getCreatedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should report rejected rows by line and keep importing")
+    void testRejectedRows() throws IOException {
+        ImportResult result = importLines(
+            row("Valid Product", "10.00", 5, "IMP-000001"),
+            "{not json",
+            row("No", "10.00", 5, "IMP-000002"),
+            row("Too Precise", "10.001", 5, "IMP-000003"),
+            row("Duplicate Product", "10.00", 5, "IMP-000001"),
+            row("Existing Sku", "10.00", 5, "EXI-000001"),
+            row("Last Product", "10.00", 5, "IMP-000004"));
+
+        assertThat(result.processed()).isEqualTo(7);
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.rejected()).isEqualTo(5);
+        assertThat(result.errors()).extracting(ImportError::line).containsExactly(2L, 3L, 4L, 5L, 6L);
+        assertThat(result.errors().get(1).message()).startsWith("name:");
+        assertThat(productRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should cap the number of reported errors")
+    void testErrorCap() throws IOException {
+        String[] lines = new String[1_005];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = "[]";
+        }
+
+        ImportResult result = importLines(lines);
+
+        assertThat(result.rejected()).isEqualTo(1_005);
+        assertThat(result.errors()).hasSize(1_000);
+    }
+
+    private ImportResult importLines(String... lines) throws IOException {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return productImportService.importCatalog(new ByteArrayInputStream(body));
+    }
+
+    private static String row(String name, String price, int quantity, String sku) {
+        return """
+            {"name":"%s","price":%s,"quantity":%d,"sku":"%s","contactEmail":"import@example.com"}"""
+            .formatted(name, price, quantity, sku);
+    }
+}
@@ -0,0 +1,90 @@
+package com.kousenit.shopping.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kousenit.shopping.dto.ProductResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductJsonCacheTest {
+    
+    private ProductJsonCache productJsonCache;
+    
+    @BeforeEach
+    void setUp() {
+        productJsonCache = new ProductJsonCache(new ObjectMapper().registerModule(new JavaTimeModule()), 1 << 20, 600);
+    }
+    
+    @Test
+    @DisplayName("Should store the serialized product with its validator")
+    void testPut() {
+        // Given
+        long stamp = productJsonCache.stamp(1L);
+        
+        // When
+        ProductJsonCache.Entry entry = productJsonCache.put(product(5), stamp);
+        
+        // Then
+        assertThat(productJsonCache.get(1L)).isSameAs(entry);
+        assertThat(new String(entry.json(), StandardCharsets.UTF_8))
+            .contains("\"sku\":\"TST-000001\"")
+            .contains("\"stockStatus\":\"LOW_STOCK\"");
+        assertThat(entry.validator().etag()).startsWith("p1-");
+    }
+    
+    @Test
+    @DisplayName("Should drop an invalidated product")
+    void testInvalidate() {
+        // Given
+        productJsonCache.put(product(5), productJsonCache.stamp(1L));
+        
+        // When
+        productJsonCache.invalidate(1L);
+        
+        // Then
+        assertThat(productJsonCache.get(1L)).isNull();
+    }
+    
+    @Test
+    @DisplayName("Should not store a product read while a change was committed")
+    void testStaleReadNotStored() {
+        // Given
+        long stamp = productJsonCache.stamp(1L);
+        ProductResponse staleRead = product(5);
+        productJsonCache.invalidate(1L);
+        
+        // When
+        ProductJsonCache.Entry entry = productJsonCache.put(staleRead, stamp);
+        
+        // Then
+        assertThat(entry.json()).isNotEmpty();
+        assertThat(productJsonCache.get(1L)).isNull();
+    }
+    
+    @Test
+    @DisplayName("Should store a product while other products change")
+    void testOtherProductChangesDoNotBlockPut() {
+        // Given
+        long stamp = productJsonCache.stamp(1L);
+        productJsonCache.invalidate(2L);
+        
+        // When
+        ProductJsonCache.Entry entry = productJsonCache.put(product(5), stamp);
+        
+        // Then
+        assertThat(productJsonCache.get(1L)).isSameAs(entry);
+    }
+    
+    private static ProductResponse product(int quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ProductResponse(1L, "Cached Product", new BigDecimal("10.00"), null, quantity,
+            "TST-000001", null, now, now);
+    }
+}
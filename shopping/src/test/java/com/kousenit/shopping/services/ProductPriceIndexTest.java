@@ -0,0 +1,122 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductPrice;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductPriceIndexTest {
+    
+    private ProductPriceIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findAllProductPrices()).thenReturn(List.of(
+            new ProductPrice(1L, new BigDecimal("2499.99")),
+            new ProductPrice(2L, new BigDecimal("249.00")),
+            new ProductPrice(3L, new BigDecimal("19.99")),
+            new ProductPrice(4L, new BigDecimal("999.99")),
+            new ProductPrice(5L, new BigDecimal("249.00"))));
+        index = new ProductPriceIndex(productRepository, true);
+        index.rebuild();
+    }
+    
+    @Test
+    @DisplayName("Should be ready after the initial build")
+    void testReadyAfterBuild() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(5);
+    }
+    
+    @Test
+    @DisplayName("Should return ids in a range cheapest first with inclusive bounds")
+    void testRange() {
+        assertThat(index.findIdsInRange(new BigDecimal("19.99"), new BigDecimal("999.99"), 10))
+            .containsExactly(3L, 2L, 5L, 4L);
+        assertThat(index.findIdsInRange(new BigDecimal("20"), new BigDecimal("249"), 10))
+            .containsExactly(2L, 5L);
+        assertThat(index.findIdsInRange(new BigDecimal("249.001"), new BigDecimal("249.009"), 10))
+            .isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should return expensive ids most expensive first")
+    void testAtLeast() {
+        assertThat(index.findIdsAtLeast(new BigDecimal("249.00"), 10))
+            .containsExactly(1L, 4L, 5L, 2L);
+        assertThat(index.findIdsAtLeast(new BigDecimal("0"), 2))
+            .containsExactly(1L, 4L);
+    }
+    
+    @Test
+    @DisplayName("Should honour the result limit")
+    void testLimit() {
+        assertThat(index.findIdsInRange(BigDecimal.ZERO, new BigDecimal("5000"), 3))
+            .containsExactly(3L, 2L, 5L);
+    }
+    
+    @Test
+    @DisplayName("Should clamp bounds beyond the largest valid price")
+    void testOutOfRangeBounds() {
+        BigDecimal huge = new BigDecimal("2000000.00");
+        
+        assertThat(index.findIdsInRange(BigDecimal.ZERO, huge, 10))
+            .containsExactly(3L, 2L, 5L, 4L, 1L);
+        assertThat(index.findIdsInRange(huge, new BigDecimal("1E+30"), 10)).isEmpty();
+        assertThat(index.findIdsInRange(new BigDecimal("-5"), new BigDecimal("-1"), 10)).isEmpty();
+        assertThat(index.findIdsAtLeast(huge, 10)).isEmpty();
+        assertThat(index.findIdsAtLeast(new BigDecimal("-1E+30"), 2)).containsExactly(1L, 4L);
+        assertThat(index.isInRange(1L, new BigDecimal("2499.99"), huge)).isTrue();
+    }
+    
+    @Test
+    @DisplayName("Should filter ids by a price range converted to cents once")
+    void testRangeFilter() {
+        Predicate<Long> filter = index.rangeFilter(new BigDecimal("19.995"), new BigDecimal("999.99"));
+        
+        assertThat(filter.test(2L)).isTrue();
+        assertThat(filter.test(4L)).isTrue();
+        assertThat(filter.test(3L)).isFalse();
+        assertThat(filter.test(1L)).isFalse();
+        assertThat(filter.test(99L)).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should follow product changes")
+    void testProductChanges() {
+        index.onProductChanged(ProductChangedEvent.updated(response(3L, "3000.00"), 1L));
+        index.onProductChanged(ProductChangedEvent.deleted(4L));
+        index.onProductChanged(ProductChangedEvent.created(response(6L, "500.00"), 1L));
+        
+        assertThat(index.findIdsAtLeast(new BigDecimal("249.00"), 10))
+            .containsExactly(3L, 1L, 6L, 5L, 2L);
+        assertThat(index.isInRange(6L, new BigDecimal("400"), new BigDecimal("600"))).isTrue();
+        assertThat(index.isInRange(4L, BigDecimal.ZERO, new BigDecimal("5000"))).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should not be ready when disabled")
+    void testDisabled() {
+        ProductPriceIndex disabled = new ProductPriceIndex(mock(ProductRepository.class), false);
+        disabled.rebuild();
+        
+        assertThat(disabled.isReady()).isFalse();
+    }
+    
+    private static ProductResponse response(Long id, String price) {
+        return new ProductResponse(id, "Product " + id, new BigDecimal(price), null, 10,
+            "SKU-" + id, "test@example.com", null, null, true, "IN_STOCK");
+    }
+}
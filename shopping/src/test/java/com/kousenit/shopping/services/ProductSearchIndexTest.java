@@ -0,0 +1,97 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductName;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+    
+    private ProductSearchIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findAllProductNames()).thenReturn(List.of(
+            new ProductName(1L, "MacBook Pro 16\""),
+            new ProductName(2L, "AirPods Pro"),
+            new ProductName(3L, "Pro Display"),
+            new ProductName(4L, "iPhone 15 Pro"),
+            new ProductName(5L, "Improved Cable"),
+            new ProductName(6L, "pro")));
+        index = new ProductSearchIndex(productRepository, true);
+        index.rebuild();
+    }
+    
+    @Test
+    @DisplayName("Should be ready after the initial build")
+    void testReadyAfterBuild() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.size()).isEqualTo(6);
+    }
+    
+    @Test
+    @DisplayName("Should rank exact, prefix, word and substring matches in that order")
+    void testRanking() {
+        List<Long> ids = index.search("PRO", 0, 10);
+        
+        assertThat(ids).containsExactly(6L, 3L, 2L, 4L, 1L, 5L);
+    }
+    
+    @Test
+    @DisplayName("Should page through ranked results")
+    void testPaging() {
+        assertThat(index.search("pro", 0, 2)).containsExactly(6L, 3L);
+        assertThat(index.search("pro", 2, 2)).containsExactly(2L, 4L);
+        assertThat(index.search("pro", 6, 2)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should require every gram of the query to match")
+    void testNoFalsePositives() {
+        assertThat(index.search("book pro", 0, 10)).containsExactly(1L);
+        assertThat(index.search("probook", 0, 10)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should apply offsets and limits after filtering")
+    void testFilteredSearch() {
+        assertThat(index.search("pro", 0, 2, id -> id % 2 == 0)).containsExactly(6L, 2L);
+        assertThat(index.search("pro", 2, 2, id -> id % 2 == 0)).containsExactly(4L);
+    }
+    
+    @Test
+    @DisplayName("Should leave queries shorter than a gram to the database")
+    void testShortQuery() {
+        assertThat(index.covers("pro")).isTrue();
+        assertThat(index.covers(" 15 ")).isFalse();
+        assertThrows(IllegalArgumentException.class, () -> index.search("15", 0, 10));
+    }
+    
+    @Test
+    @DisplayName("Should reflect renamed and removed products")
+    void testUpdates() {
+        index.index(5L, "Lightning Cable");
+        index.remove(6L);
+        
+        assertThat(index.search("pro", 0, 10)).doesNotContain(5L, 6L);
+        assertThat(index.search("lightning", 0, 10)).containsExactly(5L);
+    }
+    
+    @Test
+    @DisplayName("Should not be ready when disabled")
+    void testDisabled() {
+        ProductSearchIndex disabled = new ProductSearchIndex(mock(ProductRepository.class), false);
+        disabled.rebuild();
+        
+        assertThat(disabled.isReady()).isFalse();
+    }
+}
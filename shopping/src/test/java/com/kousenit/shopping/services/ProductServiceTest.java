@@ -1,7 +1,11 @@
 package com.kousenit.shopping.services;
 
+import com.kousenit.shopping.dto.CursorPage;
+import com.kousenit.shopping.dto.ProductCursor;
 import com.kousenit.shopping.dto.ProductRequest;
 import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.ReservationLine;
+import com.kousenit.shopping.dto.StockLevel;
 import com.kousenit.shopping.entities.Product;
 import com.kousenit.shopping.exceptions.InsufficientStockException;
 import com.kousenit.shopping.exceptions.ProductNotFoundException;
@@ -12,10 +16,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
@@ -39,6 +47,7 @@ class ProductServiceTest {
     private ProductService productService;
     
     private Product testProduct;
+    private ProductResponse testResponse;
     private ProductRequest testProductRequest;
     
     @BeforeEach
@@ -51,6 +60,7 @@ class ProductServiceTest {
         testProduct.setQuantity(10);
         testProduct.setSku("TST-123456");
         testProduct.setContactEmail("test@example.com");
+        testResponse = ProductResponse.from(testProduct);
         
         testProductRequest = new ProductRequest(
             "Test Product",
@@ -91,14 +101,39 @@ class ProductServiceTest {
         verify(productRepository).findById(999L);
     }
     
+    @Test
+    @DisplayName("Should get product by SKU successfully")
+    void testGetProductBySkuSuccess() {
+        // Given
+        when(productRepository.findBySku("TST-123456")).thenReturn(Optional.of(testProduct));
+        
+        // When
+        ProductResponse result = productService.getProductBySku("TST-123456");
+        
+        // Then
+        assertThat(result.id()).isEqualTo(1L);
+        assertThat(result.sku()).isEqualTo("TST-123456");
+        verify(productRepository).findBySku("TST-123456");
+    }
+    
+    @Test
+    @DisplayName("Should throw exception when SKU not found")
+    void testGetProductBySkuNotFound() {
+        // Given
+        when(productRepository.findBySku("NON-000000")).thenReturn(Optional.empty());
+        
+        // When/Then
+        assertThrows(ProductNotFoundException.class,
+            () -> productService.getProductBySku("NON-000000"));
+    }
+    
     @Test
     @DisplayName("Should get all products with pagination")
     void testGetAllProducts() {
         // Given
         Pageable pageable = PageRequest.of(0, 10);
-        List<Product> products = List.of(testProduct);
-        Page<Product> productPage = new PageImpl<>(products, pageable, 1);
-        when(productRepository.findAll(pageable)).thenReturn(productPage);
+        Page<ProductResponse> productPage = new PageImpl<>(List.of(testResponse), pageable, 1);
+        when(productRepository.findAllResponses(pageable)).thenReturn(productPage);
         
         // When
         Page<ProductResponse> result = productService.getAllProducts(pageable);
@@ -106,41 +141,133 @@ class ProductServiceTest {
         // Then
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).name()).isEqualTo("Test Product");
-        verify(productRepository).findAll(pageable);
+        verify(productRepository).findAllResponses(pageable);
+        verify(productRepository, never()).findAll(any(Pageable.class));
     }
     
     @Test
-    @DisplayName("Should search products by name")
-    void testSearchProductsByName() {
+    @DisplayName("Should return a cursor when more products follow")
+    void testScrollProductsWithNextCursor() {
         // Given
-        when(productRepository.findByNameContainingIgnoreCase("Test"))
-            .thenReturn(List.of(testProduct));
+        Product nextProduct = new Product();
+        nextProduct.setId(2L);
+        nextProduct.setName("Zeta Product");
+        nextProduct.setPrice(new BigDecimal("9.99"));
+        nextProduct.setQuantity(1);
+        when(productRepository.findFirstResponsesByName(any(Limit.class)))
+            .thenReturn(List.of(testResponse, ProductResponse.from(nextProduct)));
         
         // When
-        List<ProductResponse> result = productService.searchProductsByName("Test");
+        CursorPage<ProductResponse> result = productService.scrollProducts(null, 1);
         
         // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).name()).isEqualTo("Test Product");
-        verify(productRepository).findByNameContainingIgnoreCase("Test");
+        assertThat(result.content()).hasSize(1);
+        assertThat(result.hasNext()).isTrue();
+        assertThat(ProductCursor.decode(result.nextCursor()))
+            .isEqualTo(new ProductCursor("Test Product", 1L));
     }
     
     @Test
-    @DisplayName("Should get products by price range")
-    void testGetProductsByPriceRange() {
+    @DisplayName("Should seek past the cursor without a count query")
+    void testScrollProductsAfterCursor() {
+        // Given
+        String cursor = new ProductCursor("Test Product", 1L).encode();
+        when(productRepository.findResponsePageAfter(eq("Test Product"), eq(1L), any(Limit.class)))
+            .thenReturn(List.of(testResponse));
+        
+        // When
+        CursorPage<ProductResponse> result = productService.scrollProducts(cursor, 20);
+        
+        // Then
+        assertThat(result.hasNext()).isFalse();
+        assertThat(result.nextCursor()).isNull();
+        verify(productRepository, never()).count();
+    }
+    
+    @Test
+    @DisplayName("Should reject a malformed cursor")
+    void testScrollProductsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.scrollProducts("not-a-cursor", 20));
+    }
+    
+    @Test
+    @DisplayName("Should page name search through the database when the index is off")
+    void testSearchProductsByNamePaged() {
+        // Given
+        when(productRepository.findResponsesByNameContaining("Test", PageRequest.of(1, 5)))
+            .thenReturn(new SliceImpl<>(List.of(testResponse), PageRequest.of(1, 5), true));
+        
+        // When
+        Slice<ProductResponse> result = productService.searchProductsByName("Test", 1, 5);
+        
+        // Then
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isTrue();
+        verify(productRepository).findResponsesByNameContaining("Test", PageRequest.of(1, 5));
+    }
+    
+    @Test
+    @DisplayName("Should search the database for the trimmed name")
+    void testSearchProductsByNameTrimmed() {
+        // Given
+        when(productRepository.findResponsesByNameContaining("ab", PageRequest.of(0, 5)))
+            .thenReturn(new SliceImpl<>(List.of(testResponse)));
+        
+        // When
+        Slice<ProductResponse> result = productService.searchProductsByName("  ab ", 0, 5);
+        
+        // Then
+        assertThat(result.getContent()).hasSize(1);
+        verify(productRepository).findResponsesByNameContaining("ab", PageRequest.of(0, 5));
+    }
+    
+    @Test
+    @DisplayName("Should limit price range results when the index is not built")
+    void testGetProductsByPriceRangeWithLimit() {
         // Given
         BigDecimal minPrice = new BigDecimal("50.00");
         BigDecimal maxPrice = new BigDecimal("150.00");
-        when(productRepository.findByPriceBetween(minPrice, maxPrice))
-            .thenReturn(List.of(testProduct));
+        when(productRepository.findResponsesByPriceBetween(eq(minPrice), eq(maxPrice), any(Limit.class)))
+            .thenReturn(List.of(testResponse));
         
         // When
-        List<ProductResponse> result = productService.getProductsByPriceRange(minPrice, maxPrice);
+        Slice<ProductResponse> result = productService.getProductsByPriceRange(minPrice, maxPrice, 10);
         
         // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).price()).isEqualTo(new BigDecimal("99.99"));
-        verify(productRepository).findByPriceBetween(minPrice, maxPrice);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.hasNext()).isFalse();
+        verify(productRepository).findResponsesByPriceBetween(
+            eq(minPrice), eq(maxPrice), argThat(limit -> limit.max() == 11));
+    }
+    
+    @Test
+    @DisplayName("Should reject result limits outside the allowed range")
+    void testGetExpensiveProductsInvalidLimit() {
+        // When/Then
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.getExpensiveProducts(new BigDecimal("100.00"), 0));
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.getExpensiveProducts(new BigDecimal("100.00"), 1001));
+        verify(productRepository, never()).findExpensiveResponses(any(), any(Limit.class));
+    }
+    
+    @Test
+    @DisplayName("Should search by name within a price range")
+    void testSearchProductsWithPriceRange() {
+        // Given
+        BigDecimal minPrice = new BigDecimal("50.00");
+        BigDecimal maxPrice = new BigDecimal("150.00");
+        when(productRepository.findResponsesByNameContainingAndPriceBetween(
+                "Test", minPrice, maxPrice, PageRequest.of(0, 20)))
+            .thenReturn(new SliceImpl<>(List.of(testResponse)));
+        
+        // When
+        Slice<ProductResponse> result = productService.searchProducts("Test", minPrice, maxPrice, 0, 20);
+        
+        // Then
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).name()).isEqualTo("Test Product");
     }
     
     @Test
@@ -152,8 +279,8 @@ class ProductServiceTest {
         
         // When/Then
         assertThrows(IllegalArgumentException.class,
-            () -> productService.getProductsByPriceRange(minPrice, maxPrice));
-        verify(productRepository, never()).findByPriceBetween(any(), any());
+            () -> productService.getProductsByPriceRange(minPrice, maxPrice, 100));
+        verify(productRepository, never()).findResponsesByPriceBetween(any(), any(), any(Limit.class));
     }
     
     @Test
@@ -232,6 +359,38 @@ class ProductServiceTest {
         verify(productRepository).save(any(Product.class));
     }
     
+    @Test
+    @DisplayName("Should retry a stock update that lost an optimistic lock race")
+    void testUpdateStockRetriesOnConflict() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L))
+            .thenReturn(testProduct);
+        
+        // When
+        ProductResponse result = productService.updateStock(1L, 25);
+        
+        // Then
+        assertThat(result.quantity()).isEqualTo(25);
+        verify(productRepository, times(2)).findById(1L);
+        verify(productRepository, times(2)).save(any(Product.class));
+    }
+    
+    @Test
+    @DisplayName("Should give up on a conflicting stock update after the configured attempts")
+    void testUpdateStockConflictRetriesExhausted() {
+        // Given
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+        
+        // When/Then
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> productService.updateStock(1L, 25));
+        verify(productRepository, times(4)).save(any(Product.class));
+    }
+    
     @Test
     @DisplayName("Should throw exception when updating stock with negative quantity")
     void testUpdateStockNegativeQuantity() {
@@ -274,6 +433,58 @@ class ProductServiceTest {
         verify(productRepository, never()).save(any(Product.class));
     }
     
+    @Test
+    @DisplayName("Should reserve stock for several order lines at once")
+    void testReserveStockForOrderLines() {
+        // Given
+        Product otherProduct = new Product();
+        otherProduct.setId(2L);
+        otherProduct.setName("Other Product");
+        otherProduct.setPrice(new BigDecimal("19.99"));
+        otherProduct.setQuantity(20);
+        otherProduct.setSku("TST-654321");
+        List<Product> products = List.of(testProduct, otherProduct);
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(products);
+        when(productRepository.saveAllAndFlush(products)).thenReturn(products);
+        
+        // When
+        List<ProductResponse> result = productService.reserveStock(List.of(
+            new ReservationLine(2L, 5),
+            new ReservationLine(1L, 3),
+            new ReservationLine(2L, 5)));
+        
+        // Then
+        assertThat(result).extracting(ProductResponse::quantity).containsExactly(7, 10);
+        verify(productRepository).findAllByIdForUpdate(argThat(ids -> List.copyOf(ids).equals(List.of(1L, 2L))));
+        verify(productRepository).saveAllAndFlush(products);
+    }
+    
+    @Test
+    @DisplayName("Should reject all order lines when one has insufficient stock")
+    void testReserveStockForOrderLinesInsufficientStock() {
+        // Given
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testProduct));
+        
+        // When/Then
+        assertThrows(InsufficientStockException.class,
+            () -> productService.reserveStock(List.of(new ReservationLine(1L, 15))));
+        verify(productRepository, never()).saveAllAndFlush(any());
+    }
+    
+    @Test
+    @DisplayName("Should throw exception when an order line references a missing product")
+    void testReserveStockForOrderLinesMissingProduct() {
+        // Given
+        when(productRepository.findAllByIdForUpdate(any())).thenReturn(List.of(testProduct));
+        
+        // When/Then
+        ProductNotFoundException ex = assertThrows(ProductNotFoundException.class,
+            () -> productService.reserveStock(List.of(
+                new ReservationLine(1L, 1),
+                new ReservationLine(999L, 1))));
+        assertThat(ex.getProductId()).isEqualTo(999L);
+    }
+    
     @Test
     @DisplayName("Should add stock successfully")
     void testAddStockSuccess() {
@@ -307,15 +518,53 @@ class ProductServiceTest {
     @DisplayName("Should get low stock products")
     void testGetLowStockProducts() {
         // Given
-        when(productRepository.findLowStockProducts(10)).thenReturn(List.of(testProduct));
+        when(productRepository.findLowStockResponses(10, Limit.of(101))).thenReturn(List.of(testResponse));
         
         // When
-        List<ProductResponse> result = productService.getLowStockProducts(10);
+        Slice<ProductResponse> result = productService.getLowStockProducts(10, 100);
         
         // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).quantity()).isEqualTo(10);
-        verify(productRepository).findLowStockProducts(10);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).quantity()).isEqualTo(10);
+        verify(productRepository).findLowStockResponses(10, Limit.of(101));
+    }
+    
+    @Test
+    @DisplayName("Should get low stock levels from the database when the tracker is not built")
+    void testGetLowStockLevels() {
+        // Given
+        when(productRepository.findLowStockLevels(10, Limit.of(101)))
+            .thenReturn(List.of(new StockLevel(1L, "TST-001", 2)));
+        
+        // When
+        Slice<StockLevel> result = productService.getLowStockLevels(10, 100);
+        
+        // Then
+        assertThat(result.getContent()).containsExactly(new StockLevel(1L, "TST-001", 2));
+        verify(productRepository).findLowStockLevels(10, Limit.of(101));
+    }
+    
+    @Test
+    @DisplayName("Should report that a limited result left matches out")
+    void testGetLowStockLevelsHasNext() {
+        // Given
+        when(productRepository.findLowStockLevels(10, Limit.of(2))).thenReturn(List.of(
+            new StockLevel(1L, "TST-001", 1), new StockLevel(2L, "TST-002", 2)));
+        
+        // When
+        Slice<StockLevel> result = productService.getLowStockLevels(10, 1);
+        
+        // Then
+        assertThat(result.getContent()).containsExactly(new StockLevel(1L, "TST-001", 1));
+        assertThat(result.hasNext()).isTrue();
+    }
+    
+    @Test
+    @DisplayName("Should reject a low stock limit outside 1 to 1000")
+    void testGetLowStockLevelsRejectsLimit() {
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.getLowStockLevels(10, 1001));
+        verifyNoInteractions(productRepository);
     }
     
     @Test
@@ -323,14 +572,14 @@ class ProductServiceTest {
     void testGetExpensiveProducts() {
         // Given
         BigDecimal minPrice = new BigDecimal("50.00");
-        when(productRepository.findExpensiveProducts(minPrice)).thenReturn(List.of(testProduct));
+        when(productRepository.findExpensiveResponses(minPrice, Limit.of(101))).thenReturn(List.of(testResponse));
         
         // When
-        List<ProductResponse> result = productService.getExpensiveProducts(minPrice);
+        Slice<ProductResponse> result = productService.getExpensiveProducts(minPrice, 100);
         
         // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).price()).isEqualTo(new BigDecimal("99.99"));
-        verify(productRepository).findExpensiveProducts(minPrice);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).price()).isEqualTo(new BigDecimal("99.99"));
+        verify(productRepository).findExpensiveResponses(minPrice, Limit.of(101));
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.events.StockChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductVersionsTest {
+    
+    private final ProductVersions productVersions = new ProductVersions();
+    
+    @Test
+    @DisplayName("Should move the catalog version when stock changes")
+    void testStockChangeMovesCatalog() {
+        // Given
+        String before = productVersions.catalog().etag();
+        
+        // When
+        productVersions.onStockChanged(
+            new StockChangedEvent(1L, "TST-000001", 5, 4, StockChangedEvent.Reason.RESERVATION, 1L));
+        
+        // Then
+        assertThat(productVersions.catalog().etag()).isNotEqualTo(before);
+    }
+    
+    @Test
+    @DisplayName("Should give different ETags to different updates of a product")
+    void testEtagFollowsUpdatedAt() {
+        // Given
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_456_000);
+        
+        // When
+        String first = ProductVersions.of(product(updatedAt)).etag();
+        String second = ProductVersions.of(product(updatedAt.plusNanos(1_000))).etag();
+        
+        // Then
+        assertThat(first).startsWith("p1-").isNotEqualTo(second);
+    }
+    
+    @Test
+    @DisplayName("Should give different ETags to different quantities with the same timestamp")
+    void testEtagFollowsQuantity() {
+        // Given
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        ProductResponse before = product(updatedAt);
+        ProductResponse after = new ProductResponse(1L, "Versioned Product", new BigDecimal("10.00"), null, 4,
+            "TST-000001", null, updatedAt, updatedAt);
+        
+        // When
+        String first = ProductVersions.of(before).etag();
+        String second = ProductVersions.of(after).etag();
+        
+        // Then
+        assertThat(first).isNotEqualTo(second);
+    }
+    
+    @Test
+    @DisplayName("Should have no validator for a product without a timestamp")
+    void testNoTimestamp() {
+        assertThat(ProductVersions.of(product(null))).isNull();
+    }
+    
+    private static ProductResponse product(LocalDateTime updatedAt) {
+        return new ProductResponse(1L, "Versioned Product", new BigDecimal("10.00"), null, 5,
+            "TST-000001", null, updatedAt, updatedAt);
+    }
+}
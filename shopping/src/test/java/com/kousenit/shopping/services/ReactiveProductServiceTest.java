@@ -0,0 +1,84 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductRequest;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ReactiveProductServiceTest {
+    
+    @Autowired
+    private ReactiveProductService reactiveProductService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        
+        Product product = new Product();
+        product.setName("Reactive Product");
+        product.setPrice(new BigDecimal("49.99"));
+        product.setQuantity(25);
+        product.setSku("RCT-000001");
+        product.setContactEmail("reactive@example.com");
+        productRepository.save(product);
+    }
+    
+    @Test
+    @DisplayName("Should read rows written through JPA")
+    void testReadsJpaRows() {
+        StepVerifier.create(reactiveProductService.getProductBySku("RCT-000001"))
+            .assertNext(response -> {
+                assertThat(response.name()).isEqualTo("Reactive Product");
+                assertThat(response.quantity()).isEqualTo(25);
+                assertThat(response.stockStatus()).isEqualTo("MEDIUM_STOCK");
+            })
+            .verifyComplete();
+    }
+    
+    @Test
+    @DisplayName("Should create products visible to JPA")
+    void testCreateProduct() {
+        ProductRequest request = new ProductRequest("Reactive Gadget", new BigDecimal("19.99"),
+            "Created reactively", 5, "RCT-000002", "reactive@example.com");
+        
+        StepVerifier.create(reactiveProductService.createProduct(request))
+            .assertNext(response -> assertThat(response.id()).isNotNull())
+            .verifyComplete();
+        
+        Product saved = productRepository.findBySku("RCT-000002").orElseThrow();
+        assertThat(saved.getCreatedAt()).isNotNull();
+        assertThat(saved.getQuantity()).isEqualTo(5);
+    }
+    
+    @Test
+    @DisplayName("Should stream search results")
+    void testSearchProducts() {
+        StepVerifier.create(reactiveProductService.searchProductsByName("reactive"))
+            .expectNextCount(1)
+            .verifyComplete();
+    }
+    
+    @Test
+    @DisplayName("Should signal not found for unknown products")
+    void testProductNotFound() {
+        StepVerifier.create(reactiveProductService.getProductById(999_999L))
+            .expectError(ProductNotFoundException.class)
+            .verify();
+    }
+}
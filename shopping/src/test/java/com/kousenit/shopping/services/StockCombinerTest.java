@@ -0,0 +1,129 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.exceptions.InsufficientStockException;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.repositories.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "shopping.stock.combining.enabled=true")
+@ActiveProfiles("test")
+class StockCombinerTest {
+
+    private static final String CONTENDED = "shopping.stock.combining.contended.operations";
+
+    @Autowired
+    private StockCombiner stockCombiner;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+
+        Product product = new Product();
+        product.setName("Hot Product");
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(100);
+        product.setSku("HOT-000001");
+        product.setContactEmail("hot@example.com");
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    @DisplayName("Should apply a single reservation and report the remaining stock")
+    void testReserve() {
+        ProductResponse response = stockCombiner.reserve(productId, 30);
+
+        assertThat(response.quantity()).isEqualTo(70);
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(70);
+    }
+
+    @Test
+    @DisplayName("Should fail only the reservation that does not fit")
+    void testInsufficientStock() {
+        stockCombiner.reserve(productId, 95);
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+            () -> stockCombiner.reserve(productId, 10));
+        assertThat(ex.getAvailableQuantity()).isEqualTo(5);
+        assertThat(stockCombiner.add(productId, 5).quantity()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should throw exception for unknown product")
+    void testUnknownProduct() {
+        assertThrows(ProductNotFoundException.class, () -> stockCombiner.reserve(999_999L, 1));
+    }
+
+    @Test
+    @DisplayName("Should never oversell and give every caller its own result under contention")
+    void testConcurrentReservations() throws InterruptedException {
+        AtomicInteger successes = new AtomicInteger();
+        Set<Integer> remaining = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> {
+                try {
+                    remaining.add(stockCombiner.reserve(productId, 1).quantity());
+                    successes.incrementAndGet();
+                } catch (InsufficientStockException ignored) {
+                    // expected once stock runs out
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(successes.get()).isEqualTo(100);
+        assertThat(remaining).hasSize(100);
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isZero();
+
+        assertThat(stockCombiner.contention(10))
+            .allSatisfy(contention -> {
+                assertThat(contention.productId()).isEqualTo(productId);
+                assertThat(contention.operations()).isEqualTo(200);
+                assertThat(contention.maxBatchSize()).isGreaterThan(1);
+            });
+        assertThat(meterRegistry.find(CONTENDED).tag("sku", "HOT-000001").counter()).isNotNull();
+
+        stockCombiner.evictIdleSlots(System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+
+        assertThat(meterRegistry.find(CONTENDED).tag("sku", "HOT-000001").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should evict slots of idle products and recreate them on demand")
+    void testEvictIdleSlots() {
+        stockCombiner.reserve(productId, 1);
+
+        assertThat(stockCombiner.evictIdleSlots(System.nanoTime())).isZero();
+        assertThat(stockCombiner.evictIdleSlots(System.nanoTime() + TimeUnit.HOURS.toNanos(1))).isPositive();
+        assertThat(stockCombiner.slotCount()).isZero();
+        assertThat(stockCombiner.reserve(productId, 1).quantity()).isEqualTo(98);
+    }
+}
@@ -0,0 +1,228 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockHoldResponse;
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.entities.StockHold;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.exceptions.StockHoldNotFoundException;
+import com.kousenit.shopping.repositories.StockHoldRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class StockHoldsTest {
+    
+    private StockService stockService;
+    private StockHoldRepository stockHoldRepository;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private StockHolds stockHolds;
+    // Backs the mocked repository, standing in for the stock_holds table
+    private final Map<String, StockHold> rows = new ConcurrentHashMap<>();
+    
+    @BeforeEach
+    void setUp() {
+        stockService = mock(StockService.class);
+        stockHoldRepository = mock(StockHoldRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(stockService.reserveStock(eq(1L), anyInt())).thenReturn(new ProductResponse(1L, "Held Product",
+            new BigDecimal("9.99"), null, 7, "HLD-000001", null, null, null));
+        when(stockHoldRepository.save(any(StockHold.class))).thenAnswer(invocation -> {
+            StockHold row = invocation.getArgument(0);
+            rows.put(row.getId(), row);
+            return row;
+        });
+        when(stockHoldRepository.findById(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+        when(stockHoldRepository.deleteHold(anyString()))
+            .thenAnswer(invocation -> rows.remove(invocation.<String>getArgument(0)) != null ? 1 : 0);
+        when(stockHoldRepository.findAll()).thenAnswer(invocation -> List.copyOf(rows.values()));
+        stockHolds = newStockHolds();
+    }
+    
+    private StockHolds newStockHolds() {
+        return new StockHolds(stockService, stockHoldRepository, new TransactionTemplate(transactionManager),
+            meterRegistry, 900, 3600, 100, 64);
+    }
+    
+    @Test
+    @DisplayName("Should reserve the stock when a hold is placed")
+    void testPlace() {
+        StockHoldResponse hold = stockHolds.place(1L, 3, null);
+        
+        assertThat(hold.status()).isEqualTo(StockHoldResponse.Status.HELD);
+        assertThat(hold.sku()).isEqualTo("HLD-000001");
+        assertThat(stockHolds.active()).isEqualTo(1);
+        assertThat(rows).containsKey(hold.holdId());
+        verify(stockService).reserveStock(1L, 3);
+    }
+    
+    @Test
+    @DisplayName("Should give the stock back when the hold cannot be stored")
+    void testPlaceNotStored() {
+        when(stockHoldRepository.save(any(StockHold.class)))
+            .thenThrow(new IllegalStateException("database unavailable"));
+        
+        assertThrows(IllegalStateException.class, () -> stockHolds.place(1L, 3, null));
+        verify(stockService).addStock(1L, 3);
+        assertThat(stockHolds.active()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should reserve and store the hold in one transaction when reservations allow it")
+    void testPlaceInOneTransaction() {
+        when(stockService.reservesInCallerTransaction()).thenReturn(true);
+        when(stockService.reserveStockAtomically(1L, 3)).thenReturn(new StockLevel(1L, "HLD-000001", 7, 1L));
+        
+        StockHoldResponse hold = stockHolds.place(1L, 3, null);
+        
+        assertThat(hold.sku()).isEqualTo("HLD-000001");
+        assertThat(rows).containsKey(hold.holdId());
+        verify(transactionManager).commit(any());
+        verify(stockService, never()).reserveStock(anyLong(), anyInt());
+    }
+    
+    @Test
+    @DisplayName("Should roll the reservation back with a hold that cannot be stored")
+    void testPlaceRolledBack() {
+        when(stockService.reservesInCallerTransaction()).thenReturn(true);
+        when(stockService.reserveStockAtomically(1L, 3)).thenReturn(new StockLevel(1L, "HLD-000001", 7, 1L));
+        when(stockHoldRepository.save(any(StockHold.class)))
+            .thenThrow(new IllegalStateException("database unavailable"));
+        
+        assertThrows(IllegalStateException.class, () -> stockHolds.place(1L, 3, null));
+        verify(transactionManager).rollback(any());
+        verify(stockService, never()).addStock(anyLong(), anyInt());
+        assertThat(stockHolds.active()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should keep the stock reserved once a hold is confirmed")
+    void testConfirm() {
+        StockHoldResponse hold = stockHolds.place(1L, 3, 1);
+        
+        assertThat(stockHolds.confirm(hold.holdId()).status()).isEqualTo(StockHoldResponse.Status.CONFIRMED);
+        assertThat(stockHolds.expireHolds(System.nanoTime() + TimeUnit.SECONDS.toNanos(5))).isZero();
+        verify(stockService, never()).addStock(anyLong(), anyInt());
+        assertThrows(StockHoldNotFoundException.class, () -> stockHolds.cancel(hold.holdId()));
+    }
+    
+    @Test
+    @DisplayName("Should give the stock back when a hold is cancelled")
+    void testCancel() {
+        StockHoldResponse hold = stockHolds.place(1L, 3, 1);
+        
+        assertThat(stockHolds.cancel(hold.holdId()).status()).isEqualTo(StockHoldResponse.Status.CANCELLED);
+        assertThat(stockHolds.expireHolds(System.nanoTime() + TimeUnit.SECONDS.toNanos(5))).isZero();
+        verify(stockService, times(1)).addStock(1L, 3);
+        assertThat(stockHolds.active()).isZero();
+        assertThat(rows).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should answer a cancel whose release failed as pending and retry on the next tick")
+    void testCancelPending() {
+        StockHoldResponse hold = stockHolds.place(1L, 3, 60);
+        when(stockService.addStock(1L, 3))
+            .thenThrow(new IllegalStateException("database unavailable"))
+            .thenReturn(null);
+        
+        assertThat(stockHolds.cancel(hold.holdId()).status()).isEqualTo(StockHoldResponse.Status.CANCEL_PENDING);
+        assertThat(rows).containsKey(hold.holdId());
+        assertThat(stockHolds.expireHolds(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500))).isEqualTo(1);
+        
+        verify(stockService, times(2)).addStock(1L, 3);
+        assertThat(rows).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should give the stock back once when a hold expires")
+    void testExpire() {
+        StockHoldResponse hold = stockHolds.place(1L, 3, 2);
+        
+        assertThat(stockHolds.expireHolds(System.nanoTime())).isZero();
+        assertThat(stockHolds.expireHolds(System.nanoTime() + TimeUnit.SECONDS.toNanos(3))).isEqualTo(1);
+        
+        verify(stockService, times(1)).addStock(1L, 3);
+        assertThat(meterRegistry.counter("shopping.stock.holds.expired").count()).isEqualTo(1.0);
+        assertThrows(StockHoldNotFoundException.class, () -> stockHolds.confirm(hold.holdId()));
+    }
+    
+    @Test
+    @DisplayName("Should retry releasing an expired hold that failed on the next tick")
+    void testExpireRetry() {
+        stockHolds.place(1L, 3, 1);
+        when(stockService.addStock(1L, 3))
+            .thenThrow(new IllegalStateException("database unavailable"))
+            .thenReturn(null);
+        long expiry = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        
+        assertThat(stockHolds.expireHolds(expiry)).isZero();
+        assertThat(stockHolds.active()).isEqualTo(1);
+        assertThat(stockHolds.expireHolds(expiry + TimeUnit.MILLISECONDS.toNanos(200))).isEqualTo(1);
+        assertThat(stockHolds.active()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should drop a hold whose product was deleted")
+    void testProductDeleted() {
+        StockHoldResponse hold = stockHolds.place(1L, 3, 1);
+        when(stockService.addStock(1L, 3)).thenThrow(new ProductNotFoundException(1L));
+        
+        assertThat(stockHolds.cancel(hold.holdId()).status()).isEqualTo(StockHoldResponse.Status.CANCELLED);
+        assertThat(stockHolds.active()).isZero();
+    }
+    
+    @Test
+    @DisplayName("Should reject a TTL above the configured maximum")
+    void testMaxTtl() {
+        assertThrows(IllegalArgumentException.class, () -> stockHolds.place(1L, 3, 3601));
+        verify(stockService, never()).reserveStock(anyLong(), anyInt());
+    }
+    
+    @Test
+    @DisplayName("Should put stored holds back on the wheel after a restart")
+    void testRestore() {
+        StockHoldResponse held = stockHolds.place(1L, 3, 60);
+        rows.put("overdue", new StockHold("overdue", 1L, "HLD-000001", 2, LocalDateTime.now().minusSeconds(5)));
+        StockHolds restarted = newStockHolds();
+        
+        restarted.restore();
+        
+        assertThat(restarted.active()).isEqualTo(2);
+        assertThat(restarted.expireHolds(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200))).isEqualTo(1);
+        verify(stockService).addStock(1L, 2);
+        assertThat(restarted.confirm(held.holdId()).status()).isEqualTo(StockHoldResponse.Status.CONFIRMED);
+        verify(stockService, never()).addStock(1L, 3);
+    }
+    
+    @Test
+    @DisplayName("Should release a hold known to two nodes only once")
+    void testClaimedElsewhere() {
+        StockHoldResponse hold = stockHolds.place(1L, 3, 1);
+        StockHolds otherNode = newStockHolds();
+        otherNode.restore();
+        
+        otherNode.cancel(hold.holdId());
+        
+        assertThat(stockHolds.expireHolds(System.nanoTime() + TimeUnit.SECONDS.toNanos(2))).isZero();
+        verify(stockService, times(1)).addStock(1L, 3);
+    }
+}
@@ -0,0 +1,140 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductRequest;
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.dto.StockLevel;
+import com.kousenit.shopping.dto.StockMovementResponse;
+import com.kousenit.shopping.entities.StockMovement;
+import com.kousenit.shopping.events.ProductChangedEvent;
+import com.kousenit.shopping.events.StockChangedEvent;
+import com.kousenit.shopping.repositories.ProductRepository;
+import com.kousenit.shopping.repositories.StockMovementRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "shopping.stock.journal.enabled=true",
+    "shopping.stock.journal.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class StockJournalTest {
+
+    @Autowired
+    private StockJournal stockJournal;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockMovementRepository stockMovementRepository;
+
+    private Long productId;
+    private ProductResponse product;
+
+    @BeforeEach
+    void setUp() {
+        stockJournal.flush();
+        stockMovementRepository.deleteAll();
+        productRepository.deleteAll();
+
+        product = productService.createProduct(new ProductRequest(
+            "Journal Product", new BigDecimal("12.50"), null, 20, "JRN-000001", "journal@example.com"));
+        productId = product.id();
+    }
+
+    @Test
+    @DisplayName("Should buffer movements and write them on flush")
+    void testBufferedUntilFlush() {
+        stockService.reserveStock(productId, 5);
+
+        assertThat(stockJournal.buffered()).isEqualTo(2);
+        assertThat(stockMovementRepository.count()).isZero();
+
+        stockJournal.flush();
+
+        assertThat(stockJournal.buffered()).isZero();
+        assertThat(stockMovementRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should record each movement with its delta and reason, newest first")
+    void testMovements() {
+        stockService.reserveStock(productId, 5);
+        stockService.addStock(productId, 10);
+        stockService.updateStock(productId, 7);
+        stockJournal.flush();
+
+        List<StockMovementResponse> movements = stockService.getStockMovements(productId, 10);
+
+        assertThat(movements).extracting(StockMovementResponse::reason).containsExactly(
+            StockMovement.Reason.ADJUSTMENT, StockMovement.Reason.RESTOCK,
+            StockMovement.Reason.RESERVATION, StockMovement.Reason.CREATED);
+        assertThat(movements).extracting(StockMovementResponse::delta).containsExactly(-18, 10, -5, 20);
+        assertThat(movements).extracting(StockMovementResponse::quantity).containsExactly(7, 25, 15, 20);
+    }
+
+    @Test
+    @DisplayName("Should rebuild current quantities by replaying the journal")
+    void testReplay() {
+        stockService.reserveStock(productId, 3);
+        stockService.addStock(productId, 8);
+        productService.updateProduct(productId, new ProductRequest(
+            "Journal Product", new BigDecimal("12.50"), null, 40, "JRN-000001", "journal@example.com"));
+        stockService.reserveStock(productId, 1);
+        stockJournal.flush();
+
+        assertThat(stockService.replayStock(productId)).isEqualTo(new StockLevel(productId, "JRN-000001", 39));
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(39);
+    }
+
+    @Test
+    @DisplayName("Should drop deleted products from the replay")
+    void testReplayAfterDelete() {
+        productService.deleteProduct(productId);
+        stockJournal.flush();
+
+        assertThat(stockService.replayStock()).extracting(StockLevel::id).doesNotContain(productId);
+    }
+
+    @Test
+    @DisplayName("Should replay in product version order even when movements arrive out of order")
+    void testReplayInVersionOrder() {
+        // Given a reservation at version 2 that reaches the journal before the update at version 1
+        stockJournal.onStockChanged(new StockChangedEvent(productId, "JRN-000001", 15, 12,
+            StockChangedEvent.Reason.RESERVATION, 2L));
+        stockJournal.onProductChanged(ProductChangedEvent.updated(new ProductResponse(productId,
+            product.name(), product.price(), null, 15, "JRN-000001", product.contactEmail(),
+            product.createdAt(), product.updatedAt()), 1L));
+        stockJournal.flush();
+
+        // When/Then
+        assertThat(stockService.replayStock(productId)).isEqualTo(new StockLevel(productId, "JRN-000001", 12));
+        assertThat(stockService.getStockMovements(productId, 10)).extracting(StockMovementResponse::reason)
+            .containsExactly(StockMovement.Reason.RESERVATION, StockMovement.Reason.UPDATED,
+                StockMovement.Reason.CREATED);
+    }
+
+    @Test
+    @DisplayName("Should not flush the buffer on reads")
+    void testReadsDoNotFlush() {
+        stockService.reserveStock(productId, 5);
+
+        assertThat(stockService.getStockMovements(productId, 10)).isEmpty();
+        assertThat(stockJournal.buffered()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,179 @@
+package com.kousenit.shopping.services;
+
+import com.kousenit.shopping.dto.ProductResponse;
+import com.kousenit.shopping.entities.Product;
+import com.kousenit.shopping.exceptions.InsufficientStockException;
+import com.kousenit.shopping.exceptions.ProductNotFoundException;
+import com.kousenit.shopping.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "shopping.stock.ledger.enabled=true",
+    "shopping.stock.ledger.flush-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StockLedgerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+
+        Product product = new Product();
+        product.setName("Ledger Product");
+        product.setPrice(new BigDecimal("19.99"));
+        product.setQuantity(100);
+        product.setSku("LDG-000001");
+        product.setContactEmail("ledger@example.com");
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    @DisplayName("Should answer reservations from memory and flush the net delta")
+    void testReserveAndFlush() {
+        ProductResponse response = stockLedger.reserve(productId, 30);
+        stockLedger.add(productId, 5);
+
+        assertThat(response.quantity()).isEqualTo(70);
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(100);
+
+        stockLedger.flush();
+
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(75);
+        stockLedger.evict(productId);
+    }
+
+    @Test
+    @DisplayName("Should change the catalog ETag once the flushed stock is in the database")
+    void testFlushChangesCatalogEtag() throws Exception {
+        stockLedger.reserve(productId, 30);
+        String etag = mockMvc.perform(get("/api/v1/products"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader("ETag");
+
+        stockLedger.flush();
+
+        mockMvc.perform(get("/api/v1/products").header("If-None-Match", etag))
+            .andExpect(status().isOk());
+        stockLedger.evict(productId);
+    }
+
+    @Test
+    @DisplayName("Should reject reservations beyond the ledger quantity")
+    void testReserveInsufficientStock() {
+        stockLedger.reserve(productId, 95);
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+            () -> stockLedger.reserve(productId, 10));
+        assertThat(ex.getAvailableQuantity()).isEqualTo(5);
+        stockLedger.evict(productId);
+    }
+
+    @Test
+    @DisplayName("Should throw exception for unknown product")
+    void testReserveUnknownProduct() {
+        assertThrows(ProductNotFoundException.class,
+            () -> stockLedger.reserve(999_999L, 1));
+    }
+
+    @Test
+    @DisplayName("Should write pending delta when evicting a product")
+    void testEvictWritesPendingDelta() {
+        stockLedger.set(productId, 42);
+
+        stockLedger.evict(productId);
+
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(42);
+    }
+
+    @Test
+    @DisplayName("Should never oversell under concurrent reservations")
+    void testConcurrentReservations() throws InterruptedException {
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++) {
+            executor.submit(() -> {
+                try {
+                    stockLedger.reserve(productId, 1);
+                    successes.incrementAndGet();
+                } catch (InsufficientStockException ignored) {
+                    // expected once stock runs out
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        stockLedger.evict(productId);
+
+        assertThat(successes.get()).isEqualTo(100);
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not reload a suspended product until the bypassing write has committed")
+    void testSuspendDuringWrite() throws Exception {
+        stockLedger.reserve(productId, 10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Future<ProductResponse> reservation = stockLedger.suspendDuring(productId, () -> {
+            Future<ProductResponse> concurrent = executor.submit(() -> stockLedger.reserve(productId, 5));
+            sleep(200);
+            assertThat(concurrent.isDone()).isFalse();
+            transactionTemplate.executeWithoutResult(status -> {
+                Product product = productRepository.findById(productId).orElseThrow();
+                product.setQuantity(50);
+            });
+            return concurrent;
+        });
+
+        assertThat(reservation.get(5, TimeUnit.SECONDS).quantity()).isEqualTo(45);
+        executor.shutdown();
+        assertThrows(InsufficientStockException.class, () -> stockLedger.reserve(productId, 46));
+        stockLedger.evict(productId);
+        assertThat(productRepository.findById(productId).orElseThrow().getQuantity()).isEqualTo(45);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
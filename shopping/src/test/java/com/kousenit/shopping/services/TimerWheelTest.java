@@ -0,0 +1,93 @@
+package com.kousenit.shopping.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimerWheelTest {
+    
+    // Ten nanosecond ticks, eight buckets: one turn of the wheel spans 80ns
+    private final TimerWheel<String> wheel = new TimerWheel<>(10, 8, 0);
+    
+    @Test
+    @DisplayName("Should fire a timeout on the first tick at or after its deadline, never before")
+    void testFiresAtDeadline() {
+        wheel.schedule("a", 25);
+        
+        assertThat(wheel.advance(20)).isEmpty();
+        assertThat(wheel.advance(29)).isEmpty();
+        assertThat(wheel.advance(30)).containsExactly("a");
+        assertThat(wheel.advance(40)).isEmpty();
+    }
+    
+    @Test
+    @DisplayName("Should keep timeouts more than one turn away until their own turn")
+    void testSeveralTurnsAway() {
+        wheel.schedule("near", 15);
+        wheel.schedule("far", 175);
+        
+        assertThat(wheel.advance(20)).containsExactly("near");
+        assertThat(wheel.advance(100)).isEmpty();
+        assertThat(wheel.advance(180)).containsExactly("far");
+    }
+    
+    @Test
+    @DisplayName("Should not fire cancelled timeouts, whether or not they were filed yet")
+    void testCancel() {
+        TimerWheel.Timeout<String> beforeFiling = wheel.schedule("a", 30);
+        TimerWheel.Timeout<String> afterFiling = wheel.schedule("b", 30);
+        wheel.schedule("c", 30);
+        
+        assertThat(beforeFiling.cancel()).isTrue();
+        wheel.advance(0);
+        assertThat(afterFiling.cancel()).isTrue();
+        
+        assertThat(wheel.advance(30)).containsExactly("c");
+        assertThat(afterFiling.cancel()).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should not cancel a timeout that already fired")
+    void testCancelAfterFiring() {
+        TimerWheel.Timeout<String> timeout = wheel.schedule("a", 10);
+        
+        assertThat(wheel.advance(10)).containsExactly("a");
+        assertThat(timeout.cancel()).isFalse();
+    }
+    
+    @Test
+    @DisplayName("Should fire everything that fell due while the clock was not advanced")
+    void testCatchUpAfterStall() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule("t" + i, i * 7L);
+            expected.add("t" + i);
+        }
+        wheel.schedule("later", 10_000);
+        
+        assertThat(wheel.advance(1_000)).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(wheel.advance(9_999)).isEmpty();
+        assertThat(wheel.advance(10_000)).containsExactly("later");
+    }
+    
+    @Test
+    @DisplayName("Should fire an overdue timeout on the next advance")
+    void testOverdue() {
+        wheel.advance(100);
+        wheel.schedule("late", 50);
+        
+        assertThat(wheel.advance(100)).isEmpty();
+        assertThat(wheel.advance(110)).containsExactly("late");
+    }
+    
+    @Test
+    @DisplayName("Should require a power-of-two wheel size")
+    void testWheelSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel<String>(10, 12, 0));
+    }
+}